@@ -0,0 +1,298 @@
+package io.cdap.directives.aggregates;
+
+import io.cdap.wrangler.api.parser.AsciiCharSequence;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.TimeDuration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams byte size and request time fields out of nginx or Apache style access logs straight into
+ * a {@link SizeTimeAccumulator}, without building a {@code Row} or a {@code String} per line.
+ *
+ * <p>Files are memory-mapped and split into chunks that are scanned in parallel. A chunk owns every
+ * line that starts inside it, so lines crossing a chunk boundary are read by exactly one chunk.
+ * Fields are located by counting delimiters; a field that starts with a double quote or an opening
+ * square bracket extends to the matching closing character, so quoted request lines and bracketed
+ * timestamps count as single fields. Inside double quotes, a backslash escapes the next character,
+ * as in the {@code \"} Apache writes for quotes in a user agent. A value of {@code -} counts as
+ * zero.</p>
+ *
+ * <p>Lines that are too short or whose fields cannot be parsed are skipped, like invalid rows in
+ * {@link SizeTimeAggregator}. Typical usage for a nightly report:</p>
+ * <pre>
+ *   AccessLogReader reader = AccessLogReader.builder(9, 10).timeUnit(TimeUnit.SECONDS).build();
+ *   aggregator.merge(reader.read(files), context);
+ *   Row result = aggregator.getAggregationResult(context);
+ * </pre>
+ */
+public final class AccessLogReader {
+    /**
+     * A line crossing a chunk boundary may extend at most this far past the end of the chunk.
+     */
+    static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - MAX_LINE_LENGTH - 1;
+
+    private final int sizeField;
+    private final int timeField;
+    private final byte delimiter;
+    private final TimeUnit timeUnit;
+    private final ByteSize.UnitSystem unitSystem;
+    private final int parallelism;
+    private final long chunkSize;
+
+    private AccessLogReader(Builder builder) {
+        this.sizeField = builder.sizeField;
+        this.timeField = builder.timeField;
+        this.delimiter = builder.delimiter;
+        this.timeUnit = builder.timeUnit;
+        this.unitSystem = builder.unitSystem;
+        this.parallelism = builder.parallelism;
+        this.chunkSize = builder.chunkSize;
+    }
+
+    /**
+     * Creates a builder for a reader that takes sizes and times from the given zero-based fields.
+     */
+    public static Builder builder(int sizeField, int timeField) {
+        return new Builder(sizeField, timeField);
+    }
+
+    /**
+     * Reads all lines of the given files and returns their accumulated totals.
+     *
+     * @throws IOException if a file cannot be mapped, or a line crossing a chunk boundary is
+     * longer than {@link #MAX_LINE_LENGTH}
+     */
+    public SizeTimeAccumulator read(List<Path> files) throws IOException {
+        List<FileChannel> channels = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<SizeTimeAccumulator>> results = new ArrayList<>();
+            for (Path file : files) {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channels.add(channel);
+                long fileSize = channel.size();
+                for (long start = 0; start < fileSize; start += chunkSize) {
+                    long chunkStart = start;
+                    long chunkEnd = Math.min(fileSize, start + chunkSize);
+                    results.add(executor.submit(() -> scan(channel, fileSize, chunkStart, chunkEnd)));
+                }
+            }
+
+            SizeTimeAccumulator total = new SizeTimeAccumulator();
+            for (Future<SizeTimeAccumulator> result : results) {
+                total.merge(result.get());
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading access logs");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to read access logs", cause);
+        } finally {
+            executor.shutdownNow();
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Scans the lines starting in {@code [chunkStart, chunkEnd)} of a file.
+     */
+    private SizeTimeAccumulator scan(FileChannel channel, long fileSize, long chunkStart,
+                                     long chunkEnd) throws IOException {
+        // Map one byte before the chunk to tell whether it starts on a line boundary, and enough
+        // after it to finish the last line that starts inside it.
+        long mapStart = chunkStart == 0 ? 0 : chunkStart - 1;
+        long mapEnd = Math.min(fileSize, chunkEnd + MAX_LINE_LENGTH);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = (int) (mapEnd - mapStart);
+        int ownedEnd = (int) (chunkEnd - mapStart);
+
+        int pos = 0;
+        if (chunkStart > 0) {
+            // Skip the tail of a line that belongs to the previous chunk
+            while (pos < limit && buffer.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        AsciiCharSequence view = new AsciiCharSequence().wrap(buffer);
+        SizeTimeAccumulator accumulator = new SizeTimeAccumulator();
+        while (pos < ownedEnd) {
+            pos = scanLine(buffer, view, pos, limit, mapEnd == fileSize, accumulator);
+        }
+        return accumulator;
+    }
+
+    /**
+     * Scans one line starting at {@code pos} and returns the position of the next line.
+     */
+    private int scanLine(MappedByteBuffer buffer, AsciiCharSequence view, int pos, int limit,
+                         boolean endOfFile, SizeTimeAccumulator accumulator) throws IOException {
+        int sizeStart = -1;
+        int sizeEnd = -1;
+        int timeStart = -1;
+        int timeEnd = -1;
+        int field = 0;
+        int fieldStart = pos;
+        byte closing = 0;
+        int i = pos;
+        for (; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                break;
+            }
+            if (closing != 0) {
+                if (b == '\\' && closing == '"' && i + 1 < limit && buffer.get(i + 1) != '\n') {
+                    // A backslash-escaped character, e.g. \" in Apache logs, does not end the field
+                    i++;
+                } else if (b == closing) {
+                    closing = 0;
+                }
+            } else if (i == fieldStart && b == '"') {
+                closing = '"';
+            } else if (i == fieldStart && b == '[') {
+                closing = ']';
+            } else if (b == delimiter) {
+                if (field == sizeField) {
+                    sizeStart = fieldStart;
+                    sizeEnd = i;
+                } else if (field == timeField) {
+                    timeStart = fieldStart;
+                    timeEnd = i;
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        if (i == limit && !endOfFile) {
+            throw new IOException(String.format("Access log line is longer than %d bytes", MAX_LINE_LENGTH));
+        }
+
+        int lineEnd = i > fieldStart && buffer.get(i - 1) == '\r' ? i - 1 : i;
+        if (field == sizeField) {
+            sizeStart = fieldStart;
+            sizeEnd = lineEnd;
+        } else if (field == timeField) {
+            timeStart = fieldStart;
+            timeEnd = lineEnd;
+        }
+
+        if (sizeStart >= 0 && timeStart >= 0) {
+            long bytes = isDash(buffer, sizeStart, sizeEnd)
+                    ? 0L : ByteSize.scanBytes(view, sizeStart, sizeEnd, unitSystem);
+            long nanos = isDash(buffer, timeStart, timeEnd)
+                    ? 0L : TimeDuration.scanNanoseconds(view, timeStart, timeEnd, timeUnit);
+            // Lines with an invalid size or time are skipped
+            if (bytes >= 0 && nanos >= 0) {
+                accumulator.add(bytes, nanos);
+            }
+        }
+        return i + 1;
+    }
+
+    private static boolean isDash(MappedByteBuffer buffer, int start, int end) {
+        return end - start == 1 && buffer.get(start) == '-';
+    }
+
+    /**
+     * Builder for {@link AccessLogReader}.
+     */
+    public static final class Builder {
+        private final int sizeField;
+        private final int timeField;
+        private byte delimiter = ' ';
+        private TimeUnit timeUnit = TimeUnit.SECONDS;
+        private ByteSize.UnitSystem unitSystem = ByteSize.UnitSystem.IEC;
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private long chunkSize = 64L * 1024 * 1024;
+
+        private Builder(int sizeField, int timeField) {
+            if (sizeField < 0 || timeField < 0 || sizeField == timeField) {
+                throw new IllegalArgumentException(
+                        String.format("Size field %d and time field %d must be distinct and non-negative",
+                                      sizeField, timeField));
+            }
+            this.sizeField = sizeField;
+            this.timeField = timeField;
+        }
+
+        /**
+         * Sets the single-byte field delimiter. Defaults to a space.
+         */
+        public Builder delimiter(char delimiter) {
+            if (delimiter > 0x7F) {
+                throw new IllegalArgumentException("Delimiter must be an ASCII character");
+            }
+            this.delimiter = (byte) delimiter;
+            return this;
+        }
+
+        /**
+         * Sets the unit of times written as bare numbers. Defaults to seconds, as in nginx
+         * {@code $request_time}; Apache {@code %D} needs microseconds.
+         */
+        public Builder timeUnit(TimeUnit timeUnit) {
+            this.timeUnit = timeUnit;
+            return this;
+        }
+
+        /**
+         * Sets how KB, MB, ... are interpreted in size fields. Defaults to IEC.
+         */
+        public Builder unitSystem(ByteSize.UnitSystem unitSystem) {
+            this.unitSystem = unitSystem;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads scanning chunks. Defaults to the number of processors.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of bytes per chunk. Defaults to 64MB.
+         */
+        public Builder chunkSize(long chunkSize) {
+            if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+                throw new IllegalArgumentException(
+                        String.format("Chunk size must be between 1 and %d bytes", MAX_CHUNK_SIZE));
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public AccessLogReader build() {
+            return new AccessLogReader(this);
+        }
+    }
+}
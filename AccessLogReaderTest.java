@@ -0,0 +1,98 @@
+package io.cdap.directives.aggregates;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link AccessLogReader}.
+ */
+public class AccessLogReaderTest {
+
+    private static final String LOG =
+            "127.0.0.1 - - [10/Oct/2023:13:55:36 -0700] \"GET /a.gif HTTP/1.1\" 200 2326 \"-\" \"Mozilla (X11)\" 0.123\n"
+            + "127.0.0.1 - - [10/Oct/2023:13:55:37 -0700] \"GET /b HTTP/1.1\" 304 - \"-\" \"curl/8.0\" 0.002\r\n"
+            + "\n"
+            + "truncated line\n"
+            + "127.0.0.1 - - [10/Oct/2023:13:55:38 -0700] \"POST /c HTTP/1.1\" 200 1KB \"-\" \"curl/8.0\" 1.5\n"
+            + "127.0.0.1 - - [10/Oct/2023:13:55:39 -0700] \"GET /d HTTP/1.1\" 500 12 \"-\" \"curl/8.0\" bad\n"
+            + "127.0.0.1 - - [10/Oct/2023:13:55:40 -0700] \"GET /e HTTP/1.1\" 200 100 \"-\" \"curl/8.0\" 250ms";
+
+    @Test
+    public void testReadCombinedLog() throws Exception {
+        Path file = write(LOG);
+        try {
+            SizeTimeAccumulator result = AccessLogReader.builder(6, 9).build().read(Collections.singletonList(file));
+            Assert.assertEquals(4, result.getCount());
+            Assert.assertEquals(2326L + 1024L + 100L, result.getTotalBytes());
+            Assert.assertEquals(123000000L + 2000000L + 1500000000L + 250000000L, result.getTotalNanos());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEscapedQuotes() throws Exception {
+        Path file = write("127.0.0.1 - - [10/Oct/2023:13:55:36 -0700] \"GET /a HTTP/1.1\" 200 10 \"-\" "
+                                  + "\"Agent \\\" x\\\\\" 0.5\n");
+        try {
+            SizeTimeAccumulator result = AccessLogReader.builder(6, 9).build().read(Collections.singletonList(file));
+            Assert.assertEquals(1, result.getCount());
+            Assert.assertEquals(10L, result.getTotalBytes());
+            Assert.assertEquals(500000000L, result.getTotalNanos());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testChunkBoundaries() throws Exception {
+        Path file = write(LOG);
+        try {
+            SizeTimeAccumulator expected = AccessLogReader.builder(6, 9).parallelism(1).build()
+                    .read(Collections.singletonList(file));
+            // Every chunk size places boundaries at different offsets within lines
+            for (int chunkSize = 1; chunkSize <= 120; chunkSize++) {
+                SizeTimeAccumulator result = AccessLogReader.builder(6, 9).chunkSize(chunkSize).parallelism(3).build()
+                        .read(Arrays.asList(file, file));
+                Assert.assertEquals(2 * expected.getCount(), result.getCount());
+                Assert.assertEquals(2 * expected.getTotalBytes(), result.getTotalBytes());
+                Assert.assertEquals(2 * expected.getTotalNanos(), result.getTotalNanos());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDelimiterAndTimeUnit() throws Exception {
+        Path file = write("a,512,1500\nb,1MiB,20\n");
+        try {
+            SizeTimeAccumulator result = AccessLogReader.builder(1, 2).delimiter(',')
+                    .timeUnit(TimeUnit.MICROSECONDS).build().read(Collections.singletonList(file));
+            Assert.assertEquals(2, result.getCount());
+            Assert.assertEquals(512L + 1024L * 1024L, result.getTotalBytes());
+            Assert.assertEquals(1520000L, result.getTotalNanos());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSameField() {
+        AccessLogReader.builder(3, 3);
+    }
+
+    private static Path write(String content) throws IOException {
+        Path file = Files.createTempFile("access", ".log");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
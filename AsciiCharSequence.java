@@ -0,0 +1,85 @@
+package io.cdap.wrangler.api.parser;
+
+import io.cdap.wrangler.api.annotations.PublicEvolving;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable {@link CharSequence} view over ASCII (or UTF-8) bytes held in a {@code byte[]} or a
+ * {@link ByteBuffer}, including direct and memory-mapped buffers.
+ *
+ * <p>Indexes are absolute positions in the underlying array or buffer, independent of the buffer's
+ * position and limit, so a reader can wrap its I/O buffer once and hand field boundaries straight
+ * to {@link ByteSize#parseBytes(CharSequence, int, int)} or
+ * {@link TimeDuration#parseNanoseconds(CharSequence, int, int)} without decoding Strings.
+ * Each byte is mapped to the char with the same value; multi-byte UTF-8 sequences therefore never
+ * match a unit and are rejected by the parsers.</p>
+ *
+ * <p>Instances are mutable and not thread-safe; use one view per reading thread.</p>
+ */
+@PublicEvolving
+public final class AsciiCharSequence implements CharSequence {
+    private byte[] array;
+    private ByteBuffer buffer;
+    private int length;
+
+    /**
+     * Points this view at the whole of {@code array}.
+     *
+     * @return this view
+     */
+    public AsciiCharSequence wrap(byte[] array) {
+        this.array = array;
+        this.buffer = null;
+        this.length = array.length;
+        return this;
+    }
+
+    /**
+     * Points this view at {@code buffer}, covering indexes {@code 0} up to its capacity.
+     *
+     * @return this view
+     */
+    public AsciiCharSequence wrap(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0) {
+            // Heap buffers that are not slices are read through their backing array.
+            return wrap(buffer.array());
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.length = buffer.capacity();
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (array != null) {
+            return (char) (array[index] & 0xFF);
+        }
+        return (char) (buffer.get(index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        if (array != null) {
+            System.arraycopy(array, start, bytes, 0, bytes.length);
+        } else {
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
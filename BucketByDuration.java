@@ -0,0 +1,96 @@
+package io.cdap.directives.transformation;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Optional;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.annotations.Categories;
+import io.cdap.wrangler.api.lineage.Lineage;
+import io.cdap.wrangler.api.lineage.Many;
+import io.cdap.wrangler.api.lineage.Mutation;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+
+import java.util.List;
+
+/**
+ * Labels each row with the latency class of a time duration column, e.g.
+ * {@code bucket-by-duration :latency :latency_class '100ms,1s' 'fast,ok,slow'}.
+ *
+ * <p>Boundaries are resolved to nanoseconds when the recipe is compiled, and each row costs one
+ * non-throwing scan of the value and a binary search over the boundaries. The destination column
+ * is set to {@code null} if the value is missing or invalid.</p>
+ */
+@Plugin(type = Directive.TYPE)
+@Name(BucketByDuration.NAME)
+@Categories(categories = { "transform" })
+@Description("Labels rows by the latency class of a time duration column, e.g. '100ms,1s' 'fast,ok,slow'.")
+public class BucketByDuration implements Directive, Lineage {
+    public static final String NAME = "bucket-by-duration";
+
+    private String column;
+    private String destination;
+    private UnitBuckets buckets;
+
+    @Override
+    public UsageDefinition define() {
+        UsageDefinition.Builder builder = UsageDefinition.builder(NAME);
+        builder.define("column", TokenType.COLUMN_NAME);
+        builder.define("destination", TokenType.COLUMN_NAME);
+        builder.define("boundaries", TokenType.TEXT);
+        builder.define("labels", TokenType.TEXT, Optional.TRUE);
+        return builder.build();
+    }
+
+    @Override
+    public void initialize(Arguments args) throws DirectiveParseException {
+        this.column = ((ColumnName) args.value("column")).value();
+        this.destination = ((ColumnName) args.value("destination")).value();
+        String labels = args.contains("labels") ? ((Text) args.value("labels")).value() : null;
+        this.buckets = UnitBuckets.parse(NAME, ((Text) args.value("boundaries")).value(), labels,
+                                         TimeDuration::parseNanoseconds);
+    }
+
+    @Override
+    public void destroy() {
+        // no-op
+    }
+
+    @Override
+    public List<Row> execute(List<Row> rows, ExecutorContext context) {
+        for (Row row : rows) {
+            int idx = row.find(column);
+            row.addOrSet(destination, idx == -1 ? null : label(row.getValue(idx)));
+        }
+        return rows;
+    }
+
+    private String label(Object value) {
+        if (value instanceof TimeDuration) {
+            return buckets.label(((TimeDuration) value).getNanoseconds());
+        }
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
+            long nanos = TimeDuration.scanNanoseconds(text, 0, text.length());
+            return nanos < 0 ? null : buckets.label(nanos);
+        }
+        return null;
+    }
+
+    @Override
+    public Mutation lineage() {
+        return Mutation.builder()
+                .readable("Labeled column '%s' with %d latency classes of column '%s'",
+                          destination, buckets.size(), column)
+                .relation(column, Many.of(column, destination))
+                .build();
+    }
+}
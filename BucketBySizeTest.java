@@ -0,0 +1,131 @@
+package io.cdap.directives.transformation;
+
+import io.cdap.wrangler.TestingRig;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+import io.cdap.wrangler.parser.MapArguments;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link BucketBySize} and {@link BucketByDuration}.
+ */
+public class BucketBySizeTest {
+
+    @Test
+    public void testBucketBySize() throws Exception {
+        BucketBySize directive = new BucketBySize();
+        initialize(directive, "size", "1KB, 1MB, 1GB", "tiny,small,medium,large");
+
+        List<Row> rows = Arrays.asList(
+                new Row("size", "0B"),
+                new Row("size", "1023B"),
+                new Row("size", "1KB"),
+                new Row("size", "1.5MB"),
+                new Row("size", new ByteSize("1GB")),
+                new Row("size", "2TB"),
+                new Row("size", "invalid"),
+                new Row("size", null),
+                new Row("other", "1GB"));
+
+        Assert.assertEquals(Arrays.asList("tiny", "tiny", "small", "medium", "large", "large", null, null, null),
+                            labels(directive.execute(rows, null)));
+    }
+
+    @Test
+    public void testBucketByDurationDefaultLabels() throws Exception {
+        BucketByDuration directive = new BucketByDuration();
+        initialize(directive, "latency", "100ms,1s", null);
+
+        List<Row> rows = Arrays.asList(
+                new Row("latency", "99ms"),
+                new Row("latency", "100ms"),
+                new Row("latency", new TimeDuration("0.5s")),
+                new Row("latency", "1m"));
+
+        Assert.assertEquals(Arrays.asList("<100ms", "100ms-1s", "100ms-1s", ">=1s"),
+                            labels(directive.execute(rows, null)));
+    }
+
+    @Test
+    public void testRecipe() throws Exception {
+        String[] recipe = new String[] {
+                "bucket-by-size :size :size_class '1KB,1MB' 'small,medium,large'",
+                "bucket-by-duration :latency :latency_class '100ms,1s'"
+        };
+
+        List<Row> rows = Arrays.asList(
+                new Row("size", "10B").add("latency", "5ms"),
+                new Row("size", "64KB").add("latency", "250ms"),
+                new Row("size", "2GB").add("latency", "3s"));
+        List<Row> results = TestingRig.execute(recipe, rows);
+
+        Assert.assertEquals(3, results.size());
+        Assert.assertEquals("small", results.get(0).getValue("size_class"));
+        Assert.assertEquals("medium", results.get(1).getValue("size_class"));
+        Assert.assertEquals("large", results.get(2).getValue("size_class"));
+        Assert.assertEquals("<100ms", results.get(0).getValue("latency_class"));
+        Assert.assertEquals("100ms-1s", results.get(1).getValue("latency_class"));
+        Assert.assertEquals(">=1s", results.get(2).getValue("latency_class"));
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testUnsortedBoundaries() throws Exception {
+        initialize(new BucketBySize(), "size", "1MB,1KB", null);
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testInvalidBoundary() throws Exception {
+        initialize(new BucketByDuration(), "latency", "1s,2x", null);
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testTrailingCommaInBoundaries() throws Exception {
+        initialize(new BucketBySize(), "size", "1KB,1MB,", null);
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testEmptyLabel() throws Exception {
+        initialize(new BucketBySize(), "size", "1KB", "a,b,");
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testLabelCountMismatch() throws Exception {
+        initialize(new BucketBySize(), "size", "1KB,1MB", "small,large");
+    }
+
+    private static List<Object> labels(List<Row> rows) {
+        List<Object> labels = new ArrayList<>();
+        for (Row row : rows) {
+            labels.add(row.getValue("class"));
+        }
+        return labels;
+    }
+
+    private static void initialize(Directive directive, String column, String boundaries, String labels)
+            throws DirectiveParseException {
+        UsageDefinition definition = directive.define();
+        TokenGroup group = new TokenGroup(new SourceInfo(1, 0, definition.getDirectiveName()));
+        group.add(new DirectiveName(definition.getDirectiveName()));
+        group.add(new ColumnName(column));
+        group.add(new ColumnName("class"));
+        group.add(new Text(boundaries));
+        if (labels != null) {
+            group.add(new Text(labels));
+        }
+        directive.initialize(new MapArguments(definition, group));
+    }
+}
@@ -4,54 +4,239 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.cdap.wrangler.api.annotations.PublicEvolving;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
+import java.nio.ByteBuffer;
 
 
 @PublicEvolving
 public class ByteSize implements Token {
-    private static final Pattern BYTE_SIZE_PATTERN = Pattern.compile("(\\d+)\\s*([kKmMgGtTpP]?[bB]?)");
+    /**
+     * Selects how the decimal-looking suffixes ("KB", "MB", ...) are interpreted. The explicit
+     * binary suffixes ("KiB", "MiB", ...) always mean powers of 1024.
+     */
+    public enum UnitSystem {
+        /**
+         * "KB" means 1024 bytes. This is the default and matches how the JVM reports memory.
+         */
+        IEC,
+
+        /**
+         * "KB" means 1000 bytes, as used by storage vendors and object stores.
+         */
+        SI
+    }
+
+    /**
+     * Unit exponent indexed by the prefix character of the suffix, 0 if the character is not a prefix.
+     * The value of one unit is 1024^exponent (a left shift by 10 * exponent) or 1000^exponent.
+     */
+    private static final byte[] PREFIX_EXPONENTS = new byte[128];
+    private static final String PREFIXES = "KMGTPE";
+    private static final long[] SI_MULTIPLIERS = new long[PREFIXES.length() + 1];
+
+    static {
+        SI_MULTIPLIERS[0] = 1L;
+        for (int i = 0; i < PREFIXES.length(); i++) {
+            PREFIX_EXPONENTS[PREFIXES.charAt(i)] = (byte) (i + 1);
+            PREFIX_EXPONENTS[Character.toLowerCase(PREFIXES.charAt(i))] = (byte) (i + 1);
+            SI_MULTIPLIERS[i + 1] = SI_MULTIPLIERS[i] * 1000;
+        }
+    }
+
     private final String value;
     private final long bytes;
+    private final UnitSystem unitSystem;
 
     public ByteSize(String value) {
+        this(value, UnitSystem.IEC);
+    }
+
+    public ByteSize(String value, UnitSystem unitSystem) {
         this.value = value;
-        this.bytes = parseBytes(value);
+        this.bytes = parseBytes(value, unitSystem);
+        this.unitSystem = unitSystem;
     }
 
+    /**
+     * Creates a byte size whose value was resolved earlier, e.g. when it is read back from a
+     * compiled recipe. {@code value} is not parsed again. Recipe literals always use
+     * {@link UnitSystem#IEC}.
+     */
+    public ByteSize(String value, long bytes) {
+        this(value, bytes, UnitSystem.IEC);
+    }
+
+    /**
+     * Creates a byte size whose value was resolved earlier in the given unit system.
+     * {@code value} is not parsed again.
+     */
+    public ByteSize(String value, long bytes, UnitSystem unitSystem) {
+        this.value = value;
+        this.bytes = bytes;
+        this.unitSystem = unitSystem;
+    }
 
-    private long parseBytes(String sizeStr) {
-        Matcher matcher = BYTE_SIZE_PATTERN.matcher(sizeStr);
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Invalid byte size format: " + sizeStr);
+    /**
+     * Parses a string representation of a byte size into bytes, e.g. "10KB", "2.5MB" or "512KiB".
+     * Fractional values are resolved with fixed-point integer arithmetic and truncated to
+     * whole bytes; nothing is allocated unless the value is invalid.
+     *
+     * @param sizeStr String representation of a byte size
+     * @return The size in bytes, treating "KB" as 1024 bytes
+     * @throws IllegalArgumentException if the string cannot be parsed
+     */
+    public static long parseBytes(CharSequence sizeStr) {
+        return parseBytes(sizeStr, 0, sizeStr.length(), UnitSystem.IEC);
+    }
+
+    /**
+     * Parses a string representation of a byte size into bytes using the given unit system.
+     *
+     * @see #parseBytes(CharSequence)
+     */
+    public static long parseBytes(CharSequence sizeStr, UnitSystem unitSystem) {
+        return parseBytes(sizeStr, 0, sizeStr.length(), unitSystem);
+    }
+
+    /**
+     * Parses the byte size held in {@code sizeStr} between {@code start} (inclusive) and
+     * {@code end} (exclusive).
+     *
+     * @see #parseBytes(CharSequence)
+     */
+    public static long parseBytes(CharSequence sizeStr, int start, int end) {
+        return parseBytes(sizeStr, start, end, UnitSystem.IEC);
+    }
+
+    /**
+     * Parses the byte size held in {@code sizeStr} between {@code start} (inclusive) and
+     * {@code end} (exclusive) using the given unit system.
+     *
+     * @see #parseBytes(CharSequence)
+     */
+    public static long parseBytes(CharSequence sizeStr, int start, int end, UnitSystem unitSystem) {
+        long bytes = scanBytes(sizeStr, start, end, unitSystem);
+        if (bytes < 0) {
+            throw UnitScanner.error(bytes, "byte size", sizeStr, start, end);
         }
+        return bytes;
+    }
 
-        long size = Long.parseLong(matcher.group(1));
-        String unit = matcher.group(2).toUpperCase();
-
-        switch (unit) {
-            case "B":
-            case "":
-                return size;
-            case "KB":
-            case "K":
-                return size * 1024;
-            case "MB":
-            case "M":
-                return size * 1024 * 1024;
-            case "GB":
-            case "G":
-                return size * 1024 * 1024 * 1024;
-            case "TB":
-            case "T":
-                return size * 1024 * 1024 * 1024 * 1024;
-            case "PB":
-            case "P":
-                return size * 1024 * 1024 * 1024 * 1024 * 1024;
-            default:
-                throw new IllegalArgumentException("Unsupported byte size unit: " + unit);
+    /**
+     * Non-throwing form of {@link #parseBytes(CharSequence, int, int, UnitSystem)} for bulk
+     * parsers, which would otherwise pay for an exception per invalid value.
+     *
+     * @return the size in bytes, or a negative {@link UnitScanner} error code
+     */
+    public static long scanBytes(CharSequence sizeStr, int start, int end, UnitSystem unitSystem) {
+        int numberEnd = UnitScanner.scanNumber(sizeStr, start, end);
+        if (numberEnd < 0) {
+            return UnitScanner.INVALID_FORMAT;
+        }
+        int unitStart = UnitScanner.skipWhitespace(sizeStr, numberEnd, end);
+        long multiplier = unitMultiplier(sizeStr, unitStart, end, unitSystem);
+        if (multiplier < 0) {
+            return multiplier;
         }
+        return UnitScanner.scaleOrError(sizeStr, start, numberEnd, multiplier);
+    }
+
+    /**
+     * Compares the byte size held in {@code sizeStr} between {@code start} (inclusive) and
+     * {@code end} (exclusive) with {@code bytes}, with the result of
+     * {@code Long.compare(parseBytes(sizeStr, start, end, unitSystem), bytes)}. The number of
+     * digits and the unit usually settle the comparison, in which case the digits are not
+     * converted at all; e.g. any size of three digits in KB is below 1MB.
+     *
+     * @throws IllegalArgumentException if the string cannot be parsed
+     */
+    public static int compareBytes(CharSequence sizeStr, int start, int end, long bytes, UnitSystem unitSystem) {
+        int order = compareBytesOrError(sizeStr, start, end, bytes, unitSystem);
+        if (order == UnitScanner.NOT_COMPARABLE) {
+            throw UnitScanner.error(scanBytes(sizeStr, start, end, unitSystem), "byte size", sizeStr, start, end);
+        }
+        return order;
+    }
+
+    /**
+     * Non-throwing form of {@link #compareBytes(CharSequence, int, int, long, UnitSystem)} for
+     * filters that test many values.
+     *
+     * @return -1, 0 or 1, or {@link UnitScanner#NOT_COMPARABLE} if the string cannot be parsed
+     */
+    public static int compareBytesOrError(CharSequence sizeStr, int start, int end, long bytes,
+                                          UnitSystem unitSystem) {
+        int numberEnd = UnitScanner.scanNumber(sizeStr, start, end);
+        if (numberEnd < 0) {
+            return UnitScanner.NOT_COMPARABLE;
+        }
+        int unitStart = UnitScanner.skipWhitespace(sizeStr, numberEnd, end);
+        long multiplier = unitMultiplier(sizeStr, unitStart, end, unitSystem);
+        if (multiplier < 0) {
+            return UnitScanner.NOT_COMPARABLE;
+        }
+        int order = UnitScanner.compareMagnitude(sizeStr, start, numberEnd, multiplier, bytes);
+        if (order != 0) {
+            return order;
+        }
+        long value = UnitScanner.scaleOrError(sizeStr, start, numberEnd, multiplier);
+        return value < 0 ? UnitScanner.NOT_COMPARABLE : Long.compare(value, bytes);
+    }
+
+    /**
+     * Parses the byte size held in ASCII or UTF-8 {@code bytes} between {@code start} (inclusive)
+     * and {@code end} (exclusive) without decoding a String. Callers parsing many fields from the
+     * same buffer can avoid even the view allocation by reusing an {@link AsciiCharSequence}.
+     *
+     * @see #parseBytes(CharSequence)
+     */
+    public static long parseBytes(byte[] bytes, int start, int end) {
+        return parseBytes(new AsciiCharSequence().wrap(bytes), start, end, UnitSystem.IEC);
+    }
+
+    /**
+     * Parses the byte size held in {@code buffer} between the absolute indexes {@code start}
+     * (inclusive) and {@code end} (exclusive). Works with heap, direct and memory-mapped buffers
+     * and does not change the buffer's position.
+     *
+     * @see #parseBytes(byte[], int, int)
+     */
+    public static long parseBytes(ByteBuffer buffer, int start, int end) {
+        return parseBytes(new AsciiCharSequence().wrap(buffer), start, end, UnitSystem.IEC);
+    }
+
+    /**
+     * Decodes a suffix of the form {@code [prefix][i][B]} through {@link #PREFIX_EXPONENTS}.
+     *
+     * @return the value of one unit, or {@link UnitScanner#UNSUPPORTED_UNIT}
+     */
+    private static long unitMultiplier(CharSequence s, int start, int end, UnitSystem unitSystem) {
+        if (start == end) {
+            return 1L;
+        }
+        char prefix = s.charAt(start);
+        int i = start + 1;
+        if (prefix == 'b' || prefix == 'B') {
+            if (i == end) {
+                return 1L;
+            }
+            return UnitScanner.UNSUPPORTED_UNIT;
+        }
+        int exponent = prefix < PREFIX_EXPONENTS.length ? PREFIX_EXPONENTS[prefix] : 0;
+        if (exponent == 0) {
+            return UnitScanner.UNSUPPORTED_UNIT;
+        }
+        boolean binary = unitSystem == UnitSystem.IEC;
+        if (i < end && (s.charAt(i) == 'i' || s.charAt(i) == 'I')) {
+            binary = true;
+            i++;
+        }
+        if (i < end && (s.charAt(i) == 'b' || s.charAt(i) == 'B')) {
+            i++;
+        }
+        if (i != end) {
+            return UnitScanner.UNSUPPORTED_UNIT;
+        }
+        return binary ? 1L << (10 * exponent) : SI_MULTIPLIERS[exponent];
     }
 
     /**
@@ -67,18 +252,37 @@ public class ByteSize implements Token {
         return bytes;
     }
 
-    public double getKilobytes() {
-        return bytes / 1024.0;
+    /**
+     * Returns the unit system this size was parsed with, which also decides what the
+     * {@code getKilobytes}, {@code getMegabytes} and {@code getGigabytes} getters divide by.
+     */
+    public UnitSystem getUnitSystem() {
+        return unitSystem;
     }
 
+    /**
+     * Returns the size in KB: units of 1024 bytes for {@link UnitSystem#IEC}, 1000 for {@link UnitSystem#SI}.
+     */
+    public double getKilobytes() {
+        return bytes / kilo();
+    }
 
+    /**
+     * Returns the size in MB, in the unit system of this size.
+     */
     public double getMegabytes() {
-        return bytes / (1024.0 * 1024.0);
+        return bytes / (kilo() * kilo());
     }
 
-
+    /**
+     * Returns the size in GB, in the unit system of this size.
+     */
     public double getGigabytes() {
-        return bytes / (1024.0 * 1024.0 * 1024.0);
+        return bytes / (kilo() * kilo() * kilo());
+    }
+
+    private double kilo() {
+        return unitSystem == UnitSystem.SI ? 1000.0 : 1024.0;
     }
 
     @Override
@@ -5,6 +5,9 @@ import com.google.gson.JsonObject;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Tests for {@link ByteSize} token implementation.
  */
@@ -69,13 +72,106 @@ public class ByteSizeTest {
 
     @Test
     public void testDecimalInput() {
-        // Not supported by the current implementation, but test to document behavior
-        try {
-            ByteSize size = new ByteSize("1.5MB");
-            Assert.fail("Expected IllegalArgumentException");
-        } catch (IllegalArgumentException e) {
-            // Expected exception
-        }
+        ByteSize size = new ByteSize("1.5MB");
+        Assert.assertEquals(1536 * 1024L, size.getBytes());
+        Assert.assertEquals("1.5MB", size.value());
+
+        size = new ByteSize("2.5MB");
+        Assert.assertEquals(2621440L, size.getBytes());
+
+        size = new ByteSize("0.5 KB");
+        Assert.assertEquals(512L, size.getBytes());
+
+        // Fractions are computed exactly and truncated to whole bytes
+        Assert.assertEquals((long) (0.01 * 1024 * 1024 * 1024 * 1024 * 1024), ByteSize.parseBytes("0.01PB"));
+        Assert.assertEquals(1L, ByteSize.parseBytes("1.999B"));
+        Assert.assertEquals(1023L, ByteSize.parseBytes("0.9999999999KB"));
+    }
+
+    @Test
+    public void testParseBytesRange() {
+        Assert.assertEquals(5 * 1024L, ByteSize.parseBytes("size=5KB;", 5, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingFractionDigits() {
+        new ByteSize("1.MB");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOverflow() {
+        new ByteSize("99999999PB");
+    }
+
+    @Test
+    public void testBinaryAndDecimalUnits() {
+        // IEC (the default) treats KB as 1024, SI treats it as 1000
+        Assert.assertEquals(1024L, ByteSize.parseBytes("1KB"));
+        Assert.assertEquals(1000L, ByteSize.parseBytes("1KB", ByteSize.UnitSystem.SI));
+        Assert.assertEquals(1000L, new ByteSize("1kB", ByteSize.UnitSystem.SI).getBytes());
+        Assert.assertEquals(1500000L, ByteSize.parseBytes("1.5MB", ByteSize.UnitSystem.SI));
+        Assert.assertEquals(2000000000000L, ByteSize.parseBytes("2TB", ByteSize.UnitSystem.SI));
+
+        // Explicit binary suffixes are powers of 1024 in both systems
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes("512KiB"));
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes("512KiB", ByteSize.UnitSystem.SI));
+        Assert.assertEquals(3L << 20, ByteSize.parseBytes("3MiB", ByteSize.UnitSystem.SI));
+        Assert.assertEquals(1L << 30, ByteSize.parseBytes("1gib"));
+        Assert.assertEquals(64L << 10, ByteSize.parseBytes("64Ki"));
+        Assert.assertEquals(1L << 60, ByteSize.parseBytes("1EiB"));
+        Assert.assertEquals(1536L << 20, ByteSize.parseBytes("1.5GiB"));
+    }
+
+    @Test
+    public void testGettersFollowUnitSystem() {
+        ByteSize si = new ByteSize("1.5MB", ByteSize.UnitSystem.SI);
+        Assert.assertEquals(ByteSize.UnitSystem.SI, si.getUnitSystem());
+        Assert.assertEquals(1500.0, si.getKilobytes(), 0.0001);
+        Assert.assertEquals(1.5, si.getMegabytes(), 0.0001);
+        Assert.assertEquals(0.0015, si.getGigabytes(), 0.0000001);
+
+        ByteSize iec = new ByteSize("1.5MB");
+        Assert.assertEquals(ByteSize.UnitSystem.IEC, iec.getUnitSystem());
+        Assert.assertEquals(1536.0, iec.getKilobytes(), 0.0001);
+        Assert.assertEquals(ByteSize.UnitSystem.IEC, new ByteSize("1KB", 1024L).getUnitSystem());
+    }
+
+    @Test
+    public void testParseFromBytes() {
+        byte[] line = "GET /index.html 200 512KB 35ms".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes(line, 20, 25));
+
+        ByteBuffer heap = ByteBuffer.wrap(line);
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes(heap, 20, 25));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(line.length);
+        direct.put(line);
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes(direct, 20, 25));
+
+        // Indexes are absolute even for slices and buffers that have been read from
+        heap.position(16);
+        ByteBuffer slice = heap.slice();
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes(slice, 4, 9));
+
+        // A reusable view parses several fields without allocation
+        AsciiCharSequence view = new AsciiCharSequence().wrap(direct);
+        Assert.assertEquals(200L, ByteSize.parseBytes(view, 16, 19));
+        Assert.assertEquals(512 * 1024L, ByteSize.parseBytes(view, 20, 25));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseNonAsciiBytes() {
+        ByteSize.parseBytes("5\u00b5B".getBytes(StandardCharsets.UTF_8), 0, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBinaryUnitOverflow() {
+        new ByteSize("8EiB");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMisplacedBinaryMarker() {
+        new ByteSize("5iB");
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -139,4 +235,46 @@ public class ByteSizeTest {
         size = new ByteSize("500");
         Assert.assertEquals(500L, size.getBytes());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompareBytesMatchesParse() {
+        String[] values = { "0", "0.5KB", "999KB", "1000KB", "1023KB", "1024KB", "1MB", "1.5MB", "00012MB", "7MiB",
+                "10GB", "9.999GB", "8EB", "7EB", "1000000000000000000", "12 TB" };
+        long[] thresholds = { -1, 0, 511, 512, 1023 * 1024L, 1024 * 1024L, 1536 * 1024L, 10L << 30,
+                Long.MAX_VALUE };
+        for (String value : values) {
+            for (ByteSize.UnitSystem system : ByteSize.UnitSystem.values()) {
+                long bytes;
+                try {
+                    bytes = ByteSize.parseBytes(value, system);
+                } catch (IllegalArgumentException e) {
+                    assertCompareFails(value, system);
+                    continue;
+                }
+                for (long threshold : thresholds) {
+                    int order = ByteSize.compareBytes(value, 0, value.length(), threshold, system);
+                    Assert.assertEquals(value + " vs " + threshold, Long.signum(Long.compare(bytes, threshold)),
+                                        Long.signum(order));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompareBytesInvalid() {
+        assertCompareFails("10XB", ByteSize.UnitSystem.IEC);
+        assertCompareFails("", ByteSize.UnitSystem.IEC);
+        assertCompareFails("1.KB", ByteSize.UnitSystem.IEC);
+    }
+
+    private static void assertCompareFails(String value, ByteSize.UnitSystem system) {
+        try {
+            ByteSize.compareBytes(value, 0, value.length(), 0, system);
+            Assert.fail("Expected " + value + " to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertEquals(UnitScanner.NOT_COMPARABLE,
+                            ByteSize.compareBytesOrError(value, 0, value.length(), 0, system));
+    }
+}
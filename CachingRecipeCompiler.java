@@ -0,0 +1,146 @@
+package io.cdap.wrangler.parser;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.cdap.wrangler.api.CompileException;
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.Compiler;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.Token;
+import org.apache.twill.filesystem.Location;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * A {@link Compiler} that keeps recently compiled recipes, so that a recipe compiled again, e.g. on
+ * every request to a service, is a cache lookup instead of a run through the lexer, the parser and
+ * the {@link RecipeVisitor}.
+ *
+ * <p>Recipes are keyed by a 128-bit hash of their text. The text itself is kept with each entry and
+ * compared on a hit, so a hash collision never returns another recipe's symbols. The text is not
+ * normalized: line endings and whitespace may sit inside quoted literals, where they are part of a
+ * token's value. The cache is bounded by an estimate of the memory held by each entry, computed
+ * from the compiled symbols, and evicts least recently used entries first.</p>
+ *
+ * <p>Only successful compilations are cached. A cached {@link CompileStatus} and its
+ * {@code RecipeSymbol} are shared by all callers and must not be modified.</p>
+ */
+public final class CachingRecipeCompiler implements Compiler {
+    /**
+     * Default bound on the estimated memory held by cached recipes.
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+
+    // Estimated fixed sizes of an entry with its status and symbol, of a token group with its
+    // SourceInfo, and of a token; text adds two bytes per character on top
+    private static final int ENTRY_BYTES = 128;
+    private static final int GROUP_BYTES = 96;
+    private static final int TOKEN_BYTES = 32;
+
+    private final Compiler delegate;
+    private final Cache<HashCode, Entry> cache;
+
+    public CachingRecipeCompiler() {
+        this(new RecipeCompiler(), DEFAULT_MAXIMUM_WEIGHT);
+    }
+
+    /**
+     * @param delegate compiler used for recipes that are not cached
+     * @param maximumWeight bound on the estimated memory held by cached recipes, in bytes
+     */
+    public CachingRecipeCompiler(Compiler delegate, long maximumWeight) {
+        this.delegate = delegate;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .<HashCode, Entry>weigher((key, entry) -> entry.weight)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public CompileStatus compile(String recipe) throws CompileException {
+        HashCode key = Hashing.murmur3_128().hashString(recipe, StandardCharsets.UTF_8);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.recipe.equals(recipe)) {
+            return entry.status;
+        }
+
+        CompileStatus status = delegate.compile(recipe);
+        if (status.isSuccess() && entry == null) {
+            cache.put(key, new Entry(recipe, status));
+        }
+        return status;
+    }
+
+    @Override
+    public CompileStatus compile(Location location) throws CompileException {
+        return compile(RecipeSources.read(location));
+    }
+
+    @Override
+    public CompileStatus compile(Path path) throws CompileException {
+        return compile(RecipeSources.read(path));
+    }
+
+    /**
+     * Returns hit, miss and eviction statistics of the cache.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Removes all cached recipes.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Estimates the bytes retained by a cached recipe: its text, and for each directive the source
+     * text kept by its {@link SourceInfo} and its tokens. Extracting the source text here also lets
+     * each {@link SourceInfo} release the input the recipe was parsed from.
+     */
+    static int weigh(String recipe, CompileStatus status) {
+        long weight = ENTRY_BYTES + 2L * recipe.length();
+        Iterator<TokenGroup> groups = status.getSymbols().iterator();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            weight += GROUP_BYTES;
+            SourceInfo info = group.getSourceInfo();
+            if (info != null && info.getSource() != null) {
+                weight += 2L * info.getSource().length();
+            }
+            Iterator<Token> tokens = group.iterator();
+            while (tokens.hasNext()) {
+                Object value = tokens.next().value();
+                weight += TOKEN_BYTES;
+                if (value instanceof CharSequence) {
+                    weight += 2L * ((CharSequence) value).length();
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    /**
+     * A compiled recipe along with the text it was compiled from.
+     */
+    private static final class Entry {
+        private final String recipe;
+        private final CompileStatus status;
+        private final int weight;
+
+        private Entry(String recipe, CompileStatus status) {
+            this.recipe = recipe;
+            this.status = status;
+            this.weight = weigh(recipe, status);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CachingRecipeCompiler}.
+ */
+public class CachingRecipeCompilerTest {
+
+    private static final String RECIPE = "set-column width 5MB;\nset-column timeout 2.5s;";
+
+    @Test
+    public void testRepeatedCompileIsLookup() throws Exception {
+        CachingRecipeCompiler compiler = new CachingRecipeCompiler();
+        CompileStatus first = compiler.compile(RECIPE);
+        CompileStatus second = compiler.compile(RECIPE);
+
+        Assert.assertTrue(first.isSuccess());
+        Assert.assertSame(first, second);
+        Assert.assertSame(first.getSymbols(), second.getSymbols());
+        Assert.assertEquals(2, first.getSymbols().size());
+    }
+
+    @Test
+    public void testTextIsNotNormalized() throws Exception {
+        // Line endings inside a quoted literal are part of the token, so these must not share an entry
+        String lf = "set-column :a 'x\ny';";
+        String crlf = "set-column :a 'x\r\ny';";
+        CachingRecipeCompiler compiler = new CachingRecipeCompiler();
+        CompileStatus first = compiler.compile(lf);
+        CompileStatus second = compiler.compile(crlf);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(second, compiler.compile(crlf));
+
+        CompileStatus other = compiler.compile(RECIPE + "\nset-column limit 1GB;");
+        Assert.assertEquals(3, other.getSymbols().size());
+    }
+
+    @Test
+    public void testWeightFollowsSymbols() throws Exception {
+        String small = "set-column :a 1;";
+        String large = small + "\nset-column :b 'long text value';\nset-column :c 2;";
+        int smallWeight = CachingRecipeCompiler.weigh(small, new RecipeCompiler().compile(small));
+        int largeWeight = CachingRecipeCompiler.weigh(large, new RecipeCompiler().compile(large));
+        Assert.assertTrue(smallWeight > 2 * small.length());
+        Assert.assertTrue(largeWeight > smallWeight + 2 * (large.length() - small.length()));
+    }
+
+    @Test
+    public void testEvictionByWeight() throws Exception {
+        // Room for only a few recipes of this length
+        CachingRecipeCompiler compiler = new CachingRecipeCompiler(new RecipeCompiler(), 16384);
+        for (int i = 0; i < 100; i++) {
+            compiler.compile(RECIPE + "\nset-column c" + i + " " + i + "KB;");
+        }
+        Assert.assertTrue(compiler.stats().evictionCount() > 0);
+
+        compiler.invalidateAll();
+        CompileStatus status = compiler.compile(RECIPE);
+        Assert.assertSame(status, compiler.compile(RECIPE));
+    }
+}
@@ -0,0 +1,45 @@
+package io.cdap.wrangler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * Presents a {@link CharStream} as a {@link CharSequence} indexed by stream index, so that
+ * {@link io.cdap.wrangler.api.SourceInfo} can extract the text of a directive from the recipe on
+ * demand without depending on ANTLR.
+ *
+ * <p>Stream indexes count code points, so {@link #length()} and indexes differ from those of the
+ * recipe {@code String} when it contains supplementary characters; {@link #subSequence(int, int)}
+ * always returns the text between two stream indexes.</p>
+ */
+final class CharStreamSequence implements CharSequence {
+    private final CharStream stream;
+
+    CharStreamSequence(CharStream stream) {
+        this.stream = stream;
+    }
+
+    CharStream getStream() {
+        return stream;
+    }
+
+    @Override
+    public int length() {
+        return stream.size();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return stream.getText(Interval.of(index, index)).charAt(0);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return stream.getText(Interval.of(start, end - 1));
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
@@ -0,0 +1,56 @@
+package io.cdap.directives.row;
+
+/**
+ * Comparison operators of the unit-aware filter directives, applied to the result of a
+ * {@code compare} of a row value with the threshold of the directive.
+ */
+enum ComparisonOperator {
+    LT("<"),
+    LE("<="),
+    GT(">"),
+    GE(">="),
+    EQ("=="),
+    NE("!=");
+
+    private final String symbol;
+
+    ComparisonOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Returns the operator written as {@code symbol}, or {@code null} if there is none.
+     */
+    static ComparisonOperator fromSymbol(String symbol) {
+        for (ComparisonOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether {@code value <op> threshold} holds, given {@code compare(value, threshold)}.
+     */
+    boolean test(int order) {
+        switch (this) {
+            case LT:
+                return order < 0;
+            case LE:
+                return order <= 0;
+            case GT:
+                return order > 0;
+            case GE:
+                return order >= 0;
+            case EQ:
+                return order == 0;
+            default:
+                return order != 0;
+        }
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,72 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.RecipeSymbol;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.Token;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.Iterator;
+
+/**
+ * The symbols compiled from a {@link RecipeChunk}, with source positions relative to the start of
+ * the chunk, so that they can be reused wherever the same text appears in a recipe.
+ */
+final class CompiledChunk {
+    private final RecipeSymbol symbol;
+
+    private CompiledChunk(RecipeSymbol symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Compiles the text of a chunk.
+     *
+     * @return the compiled chunk, or {@code null} if the text does not compile, in which case the
+     * recipe must be compiled as a whole to report the errors with their positions in the recipe
+     */
+    static CompiledChunk compile(String text) {
+        try {
+            SyntaxErrorListener errorListener = new SyntaxErrorListener();
+            ParseTree tree = RecipeCompiler.parse(CharStreams.fromString(text), errorListener);
+            if (errorListener.hasErrors()) {
+                return null;
+            }
+            RecipeVisitor visitor = new RecipeVisitor();
+            visitor.visit(tree);
+            return new CompiledChunk(visitor.getCompiledUnit());
+        } catch (StringIndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds the pragmas and token groups of this chunk to a recipe, shifting the position of every
+     * directive by the position of the chunk in that recipe.
+     *
+     * @param line line at which the chunk starts in the recipe, starting from 1
+     * @param column column at which the chunk starts in the recipe, starting from 0
+     */
+    void appendTo(RecipeSymbol.Builder builder, int line, int column) {
+        if (symbol.getVersion() != null) {
+            builder.addVersion(symbol.getVersion());
+        }
+        for (String directive : symbol.getLoadableDirectives()) {
+            builder.addLoadableDirective(directive);
+        }
+        Iterator<TokenGroup> groups = symbol.iterator();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            SourceInfo info = group.getSourceInfo();
+            // Columns only move on the line the chunk starts on
+            int lineNumber = info.getLineNumber() + line - 1;
+            int columnNumber = info.getLineNumber() == 1 ? info.getColumnNumber() + column : info.getColumnNumber();
+            builder.createTokenGroup(info.withPosition(lineNumber, columnNumber));
+            Iterator<Token> tokens = group.iterator();
+            while (tokens.hasNext()) {
+                builder.addToken(tokens.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.cdap.directives.aggregates;
+
+import io.cdap.wrangler.api.parser.AsciiCharSequence;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.TimeDuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams a byte size column and a time duration column out of CSV data into a
+ * {@link SizeTimeAccumulator}, without splitting each record into a {@code Row} of Strings.
+ *
+ * <p>Input is read through one fixed-size buffer that is reused for the whole stream; only the
+ * two configured columns are located, and their bytes are handed to the primitive parsers through
+ * an {@link AsciiCharSequence} view. Parsed values are collected into {@code long[]} batches before
+ * they are added to the totals.</p>
+ *
+ * <p>Records follow RFC 4180: fields may be enclosed in double quotes, in which case they may
+ * contain delimiters, line breaks and doubled quotes. Empty size or time fields count as zero.
+ * Records with fewer columns than configured, or with a value that cannot be parsed, are skipped
+ * like invalid rows in {@link SizeTimeAggregator}.</p>
+ */
+public final class CsvColumnReader {
+    private final int sizeColumn;
+    private final int timeColumn;
+    private final byte delimiter;
+    private final boolean skipHeader;
+    private final TimeUnit timeUnit;
+    private final ByteSize.UnitSystem unitSystem;
+    private final int bufferSize;
+    private final int batchSize;
+
+    private CsvColumnReader(Builder builder) {
+        this.sizeColumn = builder.sizeColumn;
+        this.timeColumn = builder.timeColumn;
+        this.delimiter = builder.delimiter;
+        this.skipHeader = builder.skipHeader;
+        this.timeUnit = builder.timeUnit;
+        this.unitSystem = builder.unitSystem;
+        this.bufferSize = builder.bufferSize;
+        this.batchSize = builder.batchSize;
+    }
+
+    /**
+     * Creates a builder for a reader that takes sizes and times from the given zero-based columns.
+     */
+    public static Builder builder(int sizeColumn, int timeColumn) {
+        return new Builder(sizeColumn, timeColumn);
+    }
+
+    /**
+     * Reads all records of {@code in} and returns their accumulated totals. The stream is not closed.
+     *
+     * @throws IOException if the stream cannot be read, or a record is longer than the buffer
+     */
+    public SizeTimeAccumulator read(InputStream in) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        AsciiCharSequence view = new AsciiCharSequence().wrap(buffer);
+        // Start and end of the size and time fields in the current record
+        int[] spans = new int[4];
+        long[] bytes = new long[batchSize];
+        long[] nanos = new long[batchSize];
+        int batched = 0;
+        SizeTimeAccumulator accumulator = new SizeTimeAccumulator();
+
+        boolean header = skipHeader;
+        boolean eof = false;
+        int start = 0;
+        int limit = 0;
+        while (true) {
+            int next = start < limit ? scanRecord(buffer, start, limit, eof, spans) : -1;
+            if (next < 0) {
+                if (eof) {
+                    break;
+                }
+                // The record is incomplete: move it to the front of the buffer and read more
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, limit - start);
+                    limit -= start;
+                    start = 0;
+                } else if (limit == buffer.length) {
+                    throw new IOException(String.format("CSV record is longer than %d bytes", bufferSize));
+                }
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    limit += read;
+                }
+                continue;
+            }
+            start = next;
+
+            if (header) {
+                header = false;
+                continue;
+            }
+            if (spans[0] < 0 || spans[2] < 0) {
+                continue;
+            }
+            long size = spans[0] == spans[1] ? 0L : ByteSize.scanBytes(view, spans[0], spans[1], unitSystem);
+            long time = spans[2] == spans[3] ? 0L : TimeDuration.scanNanoseconds(view, spans[2], spans[3], timeUnit);
+            if (size < 0 || time < 0) {
+                // Skip records with an invalid size or time
+                continue;
+            }
+            bytes[batched] = size;
+            nanos[batched] = time;
+            if (++batched == batchSize) {
+                accumulator.add(bytes, nanos, batched);
+                batched = 0;
+            }
+        }
+        accumulator.add(bytes, nanos, batched);
+        return accumulator;
+    }
+
+    /**
+     * Scans one record starting at {@code pos}, storing the trimmed and unquoted bounds of the size
+     * and time fields in {@code spans}, or -1 for fields the record does not have.
+     *
+     * @return the position of the next record, or -1 if the record does not end before {@code limit}
+     */
+    private int scanRecord(byte[] buffer, int pos, int limit, boolean eof, int[] spans) {
+        spans[0] = -1;
+        spans[2] = -1;
+        int field = 0;
+        int fieldStart = pos;
+        boolean quoted = false;
+        for (int i = pos; i < limit; i++) {
+            byte b = buffer[i];
+            if (quoted) {
+                if (b == '"') {
+                    if (i + 1 == limit && !eof) {
+                        // Cannot tell a closing quote from an escaped one yet
+                        return -1;
+                    }
+                    if (i + 1 < limit && buffer[i + 1] == '"') {
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (b == '"' && i == fieldStart) {
+                quoted = true;
+            } else if (b == delimiter) {
+                setSpan(buffer, field, fieldStart, i, spans);
+                field++;
+                fieldStart = i + 1;
+            } else if (b == '\n') {
+                setSpan(buffer, field, fieldStart, i > fieldStart && buffer[i - 1] == '\r' ? i - 1 : i, spans);
+                return i + 1;
+            }
+        }
+        if (!eof) {
+            return -1;
+        }
+        setSpan(buffer, field, fieldStart, limit, spans);
+        return limit;
+    }
+
+    private void setSpan(byte[] buffer, int field, int start, int end, int[] spans) {
+        int index;
+        if (field == sizeColumn) {
+            index = 0;
+        } else if (field == timeColumn) {
+            index = 2;
+        } else {
+            return;
+        }
+        while (start < end && buffer[start] == ' ') {
+            start++;
+        }
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        if (end - start >= 2 && buffer[start] == '"' && buffer[end - 1] == '"') {
+            start++;
+            end--;
+        }
+        spans[index] = start;
+        spans[index + 1] = end;
+    }
+
+    /**
+     * Builder for {@link CsvColumnReader}.
+     */
+    public static final class Builder {
+        private final int sizeColumn;
+        private final int timeColumn;
+        private byte delimiter = ',';
+        private boolean skipHeader;
+        private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+        private ByteSize.UnitSystem unitSystem = ByteSize.UnitSystem.IEC;
+        private int bufferSize = 64 * 1024;
+        private int batchSize = 1024;
+
+        private Builder(int sizeColumn, int timeColumn) {
+            if (sizeColumn < 0 || timeColumn < 0 || sizeColumn == timeColumn) {
+                throw new IllegalArgumentException(
+                        String.format("Size column %d and time column %d must be distinct and non-negative",
+                                      sizeColumn, timeColumn));
+            }
+            this.sizeColumn = sizeColumn;
+            this.timeColumn = timeColumn;
+        }
+
+        /**
+         * Sets the single-byte field delimiter. Defaults to a comma.
+         */
+        public Builder delimiter(char delimiter) {
+            if (delimiter > 0x7F || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+                throw new IllegalArgumentException(
+                        "Delimiter must be an ASCII character other than a quote or line break");
+            }
+            this.delimiter = (byte) delimiter;
+            return this;
+        }
+
+        /**
+         * Sets whether the first record is a header and should be ignored. Defaults to false.
+         */
+        public Builder skipHeader(boolean skipHeader) {
+            this.skipHeader = skipHeader;
+            return this;
+        }
+
+        /**
+         * Sets the unit of times written as bare numbers. Defaults to milliseconds.
+         */
+        public Builder timeUnit(TimeUnit timeUnit) {
+            this.timeUnit = timeUnit;
+            return this;
+        }
+
+        /**
+         * Sets how KB, MB, ... are interpreted in size fields. Defaults to IEC.
+         */
+        public Builder unitSystem(ByteSize.UnitSystem unitSystem) {
+            this.unitSystem = unitSystem;
+            return this;
+        }
+
+        /**
+         * Sets the size of the read buffer, which bounds the length of a record. Defaults to 64KB.
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("Buffer size must be at least 1");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of records parsed before they are added to the totals. Defaults to 1024.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Batch size must be at least 1");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public CsvColumnReader build() {
+            return new CsvColumnReader(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.cdap.directives.aggregates;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link CsvColumnReader}.
+ */
+public class CsvColumnReaderTest {
+
+    private static final String CSV =
+            "id,size,note,duration\r\n"
+            + "1,2KB,plain,150\r\n"
+            + "2,\"1.5KB\",\"quoted, with \"\"escapes\"\"\",2s\n"
+            + "3,\"512\",\"spans\nlines\",\"250ms\"\n"
+            + "4,,missing size,1m\n"
+            + "5,bad,invalid size,1s\n"
+            + "6,10B\n"
+            + "7, 1MiB ,trimmed,5us";
+
+    @Test
+    public void testReadColumns() throws Exception {
+        SizeTimeAccumulator result = CsvColumnReader.builder(1, 3).skipHeader(true).build().read(stream(CSV));
+        Assert.assertEquals(5, result.getCount());
+        Assert.assertEquals(2048L + 1536L + 512L + 1024L * 1024L, result.getTotalBytes());
+        Assert.assertEquals(150000000L + 2000000000L + 250000000L + 60000000000L + 5000L, result.getTotalNanos());
+    }
+
+    @Test
+    public void testSmallBuffersAndBatches() throws Exception {
+        SizeTimeAccumulator expected = CsvColumnReader.builder(1, 3).skipHeader(true).build().read(stream(CSV));
+        for (int bufferSize = 40; bufferSize <= 64; bufferSize++) {
+            InputStream trickle = new ByteArrayInputStream(CSV.getBytes(StandardCharsets.US_ASCII)) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    // Deliver a few bytes at a time to split records across reads
+                    return super.read(b, off, Math.min(len, 3));
+                }
+            };
+            SizeTimeAccumulator result = CsvColumnReader.builder(1, 3).skipHeader(true)
+                    .bufferSize(bufferSize).batchSize(2).build().read(trickle);
+            Assert.assertEquals(expected.getCount(), result.getCount());
+            Assert.assertEquals(expected.getTotalBytes(), result.getTotalBytes());
+            Assert.assertEquals(expected.getTotalNanos(), result.getTotalNanos());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRecordLongerThanBuffer() throws Exception {
+        CsvColumnReader.builder(0, 1).bufferSize(8).build().read(stream("1KB,1s\n123456789KB,1s\n"));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -69,6 +69,9 @@ directive
   )*?
   ;
 
+// The expressions of if and for statements are parsed but not compiled into tokens, so unit
+// literals and bytes('...')/nanos('...') in them are not resolved. Use an exp:{} condition to
+// compare against sizes and durations.
 ifStatement
   : ifStat elseIfStat* elseStat? '}'
   ;
@@ -86,7 +89,7 @@ elseStat
   ;
 
 expression
-  : '(' (~'(' | expression)* ')'
+  : '(' (~('(' | ')') | expression)* ')'
   ;
 
 forStatement
@@ -197,12 +200,14 @@ identifierList
  : Identifier (',' Identifier)*
  ;
 
+// Sums and differences of unit literals, e.g. 1GB + 512MB or 2h - 15m, are folded into one value
+// by the compiler. A '-' must be followed by a space, otherwise it starts an Identifier.
 byteSize
- : BYTE_SIZE
+ : BYTE_SIZE ((Add | Subtract) BYTE_SIZE)*
  ;
 
 timeDuration
- : TIME_DURATION
+ : TIME_DURATION ((Add | Subtract) TIME_DURATION)*
  ;
 
 
@@ -314,24 +319,28 @@ Space
  ;
 
 BYTE_SIZE
- : Int BYTE_UNIT
+ : Int ('.' Digit+)? BYTE_UNIT
  ;
 
 TIME_DURATION
- : Int TIME_UNIT
+ : Int ('.' Digit+)? TIME_UNIT (Digit+ ('.' Digit+)? TIME_UNIT)*
  ;
 
 fragment BYTE_UNIT
- : [kK][bB]  // kilobyte
- | [mM][bB]  // megabyte
- | [gG][bB]  // gigabyte
- | [tT][bB]  // terabyte
- | [pP][bB]  // petabyte
- | [bB]      // byte
+ : [kK][iI]?[bB]  // kilobyte, kibibyte
+ | [mM][iI]?[bB]  // megabyte, mebibyte
+ | [gG][iI]?[bB]  // gigabyte, gibibyte
+ | [tT][iI]?[bB]  // terabyte, tebibyte
+ | [pP][iI]?[bB]  // petabyte, pebibyte
+ | [eE][iI]?[bB]  // exabyte, exbibyte
+ | [bB]           // byte
  ;
 
 fragment TIME_UNIT
- : [sS]       // seconds
+ : [nN][sS]   // nanoseconds
+ | [uU][sS]   // microseconds
+ | [mM][sS]   // milliseconds
+ | [sS]       // seconds
  | [mM]       // minutes
  | [hH]       // hours
  | [dD]       // days
@@ -0,0 +1,449 @@
+package io.cdap.wrangler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.Vocabulary;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A hand-written lexer for the directives language that produces the same token stream as the
+ * lexer generated from <tt>Directives.g4</tt>, without simulating the lexer ATN.
+ *
+ * <p>Every rule of the grammar is matched by a small scanner that returns the length of its
+ * longest match at the current position. As in ANTLR, the longest match wins and ties go to the
+ * rule defined first, with the implicit keyword tokens of the parser rules ({@code 'if'},
+ * {@code 'exp'}, ...) ahead of all lexer rules. That is why {@code -5MB} is an
+ * {@code Identifier} but {@code 5MB} is a {@code BYTE_SIZE}, and {@code 5mo} is a
+ * {@code TIME_DURATION}. {@code Macro} never wins over {@code Identifier} and is therefore never
+ * produced. Comments and whitespace are skipped.</p>
+ *
+ * <p>Characters that start no token are reported to the error listeners as
+ * {@code token recognition error}s and skipped, like the generated lexer does. Token types,
+ * the token factory and the error listeners are those of {@link DirectivesLexer}.</p>
+ */
+public final class DirectivesFastLexer extends DirectivesLexer {
+    // Implicit tokens for the keywords used in parser rules, defined before all lexer rules
+    private static final String[] KEYWORDS = {
+            "if", "else", "for", "#pragma", "load-directives", "version", "exp", "prop"
+    };
+    private static final int[] KEYWORD_TYPES = new int[KEYWORDS.length];
+
+    // Operator and punctuation rules in the order they are defined in the grammar
+    private static final String[] OPERATORS = {
+            "{", "}", ";", "||", "&&", "==", "!=", ">=", "<=", "=~", "!~", "?:", "=^", "!^", "=$", "!$",
+            "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "^", "!", ">", "<", "+", "-", "*", "/", "%",
+            "[", "]", "(", ")", "=", ",", "?", ":", ".", "@", "|", "\\", "$", "~"
+    };
+    private static final int[] OPERATOR_TYPES = {
+            OBrace, CBrace, SColon, Or, And, Equals, NEquals, GTEquals, LTEquals, Match, NotMatch,
+            QuestionColon, StartsWith, NotStartsWith, EndsWith, NotEndsWith, PlusEqual, SubEqual, MulEqual,
+            DivEqual, PerEqual, AndEqual, OrEqual, XOREqual, Pow, External, GT, LT, Add, Subtract, Multiply,
+            Divide, Modulus, OBracket, CBracket, OParen, CParen, Assign, Comma, QMark, Colon, Dot, At, Pipe,
+            BackSlash, Dollar, Tilde
+    };
+
+    static {
+        Vocabulary vocabulary = DirectivesLexer.VOCABULARY;
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            String literal = "'" + KEYWORDS[i] + "'";
+            for (int type = 1; type <= vocabulary.getMaxTokenType(); type++) {
+                if (literal.equals(vocabulary.getLiteralName(type))) {
+                    KEYWORD_TYPES[i] = type;
+                    break;
+                }
+            }
+            if (KEYWORD_TYPES[i] == 0) {
+                throw new IllegalStateException("Keyword " + literal + " is not defined by the directives grammar");
+            }
+        }
+    }
+
+    // Longest match found so far at the current position
+    private int matchType;
+    private int matchLength;
+    private boolean matchSkip;
+
+    public DirectivesFastLexer(CharStream input) {
+        super(input);
+    }
+
+    @Override
+    public Token nextToken() {
+        while (true) {
+            int start = _input.index();
+            int line = getLine();
+            int column = getCharPositionInLine();
+            if (la(start) == IntStream.EOF) {
+                _hitEOF = true;
+                Token eof = _factory.create(_tokenFactorySourcePair, Token.EOF, null, Token.DEFAULT_CHANNEL,
+                                            start, start - 1, line, column);
+                emit(eof);
+                return eof;
+            }
+
+            matchLength = 0;
+            boolean skip = match(start);
+            if (matchLength == 0) {
+                // Skip through the character at which no rule could continue, as the generated lexer does
+                int end = Math.min(start + viablePrefix(start) + 1, _input.size());
+                String text = _input.getText(Interval.of(start, end - 1));
+                getErrorListenerDispatch().syntaxError(this, null, line, column,
+                                                       "token recognition error at: '" + getErrorDisplay(text) + "'",
+                                                       null);
+                advance(start, end);
+                continue;
+            }
+
+            int end = start + matchLength;
+            advance(start, end);
+            if (skip) {
+                continue;
+            }
+            Token token = _factory.create(_tokenFactorySourcePair, matchType, null, Token.DEFAULT_CHANNEL,
+                                          start, end - 1, line, column);
+            emit(token);
+            return token;
+        }
+    }
+
+    /**
+     * Finds the longest match at {@code p}, preferring rules in grammar order on ties.
+     *
+     * @return whether the match is a comment or whitespace, which is skipped
+     */
+    private boolean match(int p) {
+        int c = la(p);
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            candidate(KEYWORD_TYPES[i], literal(p, KEYWORDS[i]), false);
+        }
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].charAt(0) == c) {
+                candidate(OPERATOR_TYPES[i], literal(p, OPERATORS[i]), false);
+            }
+        }
+        if (c == 't' || c == 'f') {
+            candidate(Bool, Math.max(literal(p, "true"), literal(p, "false")), false);
+        }
+        boolean numeric = isDigit(c) || c == '-';
+        if (numeric) {
+            candidate(Number, number(p), false);
+        }
+        candidate(Identifier, identifier(p), false);
+        if (c == ':') {
+            candidate(Column, column(p), false);
+        }
+        if (c == '\'' || c == '"') {
+            candidate(DirectivesLexer.String, string(p, c), false);
+        }
+        if (c == '\\') {
+            candidate(EscapeSequence, escapeSequence(p), false);
+        }
+        if (c == '/' || c == '-') {
+            candidate(Comment, comment(p), true);
+        }
+        if (isSpace(c)) {
+            candidate(Space, space(p), true);
+        }
+        if (numeric) {
+            candidate(BYTE_SIZE, byteSize(p), false);
+            candidate(TIME_DURATION, timeDuration(p), false);
+        }
+        return matchSkip;
+    }
+
+    private void candidate(int type, int length, boolean skip) {
+        if (length > matchLength) {
+            matchType = type;
+            matchLength = length;
+            matchSkip = skip;
+        }
+    }
+
+    private int literal(int p, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (la(p + i) != text.charAt(i)) {
+                return 0;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Matches {@code '-'? [1-9] Digit* [L]* | '0'} and returns the end, or -1.
+     */
+    private int intEnd(int p) {
+        int c = la(p);
+        if (c == '0') {
+            return p + 1;
+        }
+        if (c == '-') {
+            c = la(++p);
+        }
+        if (c < '1' || c > '9') {
+            return -1;
+        }
+        p++;
+        while (isDigit(la(p))) {
+            p++;
+        }
+        while (la(p) == 'L') {
+            p++;
+        }
+        return p;
+    }
+
+    private int number(int p) {
+        int end = intEnd(p);
+        if (end < 0) {
+            return 0;
+        }
+        if (la(end) == '.') {
+            end = digits(end + 1);
+        }
+        return end - p;
+    }
+
+    /**
+     * Returns the end of {@code Int ('.' Digit+)?}, or -1.
+     */
+    private int decimalEnd(int p) {
+        int end = intEnd(p);
+        if (end >= 0 && la(end) == '.' && isDigit(la(end + 1))) {
+            end = digits(end + 1);
+        }
+        return end;
+    }
+
+    private int byteSize(int p) {
+        int end = decimalEnd(p);
+        if (end < 0) {
+            return 0;
+        }
+        int c = Character.toLowerCase(la(end));
+        if (c == 'b') {
+            return end + 1 - p;
+        }
+        if ("kmgtpe".indexOf(c) < 0) {
+            return 0;
+        }
+        if (Character.toLowerCase(la(end + 1)) == 'i' && Character.toLowerCase(la(end + 2)) == 'b') {
+            return end + 3 - p;
+        }
+        return Character.toLowerCase(la(end + 1)) == 'b' ? end + 2 - p : 0;
+    }
+
+    private int timeDuration(int p) {
+        int end = decimalEnd(p);
+        if (end < 0) {
+            return 0;
+        }
+        int best = 0;
+        for (int unit = 1; unit <= 2; unit++) {
+            if (isTimeUnit(end, unit)) {
+                best = Math.max(best, durationEnd(end + unit) - p);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the end of the longest sequence of {@code Digit+ ('.' Digit+)? TIME_UNIT} starting
+     * at {@code p}, or {@code p} if there is none.
+     */
+    private int durationEnd(int p) {
+        if (!isDigit(la(p))) {
+            return p;
+        }
+        int end = digits(p);
+        if (la(end) == '.' && isDigit(la(end + 1))) {
+            end = digits(end + 1);
+        }
+        int best = p;
+        for (int unit = 1; unit <= 2; unit++) {
+            if (isTimeUnit(end, unit)) {
+                best = Math.max(best, durationEnd(end + unit));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns whether a time unit of {@code length} characters starts at {@code p}.
+     */
+    private boolean isTimeUnit(int p, int length) {
+        int c = Character.toLowerCase(la(p));
+        if (length == 1) {
+            return c == 's' || c == 'm' || c == 'h' || c == 'd' || c == 'w' || c == 'y';
+        }
+        int next = Character.toLowerCase(la(p + 1));
+        return ((c == 'n' || c == 'u' || c == 'm') && next == 's') || (c == 'm' && next == 'o');
+    }
+
+    private int identifier(int p) {
+        if (!isIdentifierStart(la(p))) {
+            return 0;
+        }
+        int end = p + 1;
+        while (isIdentifierPart(la(end))) {
+            end++;
+        }
+        return end - p;
+    }
+
+    private int column(int p) {
+        if (!isIdentifierStart(la(p + 1))) {
+            return 0;
+        }
+        int end = p + 2;
+        while (la(end) == ':' || isIdentifierPart(la(end))) {
+            end++;
+        }
+        return end - p;
+    }
+
+    /**
+     * Matches a quoted string. An escaped quote may either continue the string or, read as a
+     * backslash followed by the closing quote, end it; the longest of these matches is taken.
+     */
+    private int string(int p, int quote) {
+        int best = 0;
+        // Whether the string is still open before reading position i - 1, and position i
+        boolean previous = false;
+        boolean current = true;
+        for (int i = p + 1; current || previous; i++) {
+            int c = la(i);
+            if (c == IntStream.EOF) {
+                break;
+            }
+            if (current && c == quote) {
+                best = i + 1 - p;
+            }
+            boolean next = (current && c != quote) || (previous && c == quote && la(i - 1) == '\\');
+            previous = current;
+            current = next;
+        }
+        return best;
+    }
+
+    private int escapeSequence(int p) {
+        int c = la(p + 1);
+        if ("btnfr\"'\\".indexOf(c) >= 0) {
+            return 2;
+        }
+        if (c == 'u') {
+            for (int i = 2; i < 6; i++) {
+                if (!isHexDigit(la(p + i))) {
+                    return 0;
+                }
+            }
+            return 6;
+        }
+        if (c < '0' || c > '7') {
+            return 0;
+        }
+        int second = la(p + 2);
+        if (second < '0' || second > '7') {
+            return 2;
+        }
+        int third = la(p + 3);
+        return c <= '3' && third >= '0' && third <= '7' ? 4 : 3;
+    }
+
+    private int comment(int p) {
+        if (literal(p, "//") > 0 || literal(p, "--") > 0) {
+            int end = p + 2;
+            for (int c = la(end); c != IntStream.EOF && c != '\r' && c != '\n'; c = la(++end)) {
+                // consume up to the end of the line
+            }
+            return end - p;
+        }
+        if (literal(p, "/*") > 0) {
+            for (int end = p + 2; la(end) != IntStream.EOF; end++) {
+                if (la(end) == '*' && la(end + 1) == '/') {
+                    return end + 2 - p;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private int space(int p) {
+        int end = p;
+        while (isSpace(la(end))) {
+            end++;
+        }
+        return end - p;
+    }
+
+    /**
+     * Returns how many characters at {@code p} could still begin a token when no rule matched,
+     * which determines how much input the error skips.
+     */
+    private int viablePrefix(int p) {
+        int c = la(p);
+        if (c == '\'' || c == '"') {
+            // An unterminated string runs to the end of the input
+            return _input.size() - p;
+        }
+        if (c == '&') {
+            // Only && and &= are tokens
+            return 1;
+        }
+        int length = 0;
+        while (length < "#pragma".length() && la(p + length) == "#pragma".charAt(length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private int digits(int p) {
+        while (isDigit(la(p))) {
+            p++;
+        }
+        return p;
+    }
+
+    private void advance(int start, int end) {
+        int line = getLine();
+        int column = getCharPositionInLine();
+        for (int i = start; i < end; i++) {
+            if (la(i) == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+        _input.seek(end);
+        setLine(line);
+        setCharPositionInLine(column);
+    }
+
+    /**
+     * Returns the character at absolute index {@code index}, or {@link IntStream#EOF}.
+     */
+    private int la(int index) {
+        return _input.LA(index - _input.index() + 1);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '-';
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+}
@@ -0,0 +1,115 @@
+package io.cdap.wrangler.parser;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that {@link DirectivesFastLexer} produces exactly the tokens and errors of the generated
+ * {@link DirectivesLexer}.
+ */
+public class DirectivesFastLexerTest {
+
+    private static final String[] CORPUS = {
+            "",
+            "#pragma version 2.0;\n#pragma load-directives my-directive, other-directive;",
+            "parse-as-csv :body ',' true;\nset-type :a, :b integer;",
+            "set-column :size 512 0 05 -5 12L 1. 1.5 -0;",
+            "set-column :size 1.5KiB 2MB 10gb 1TB 5b 5kib 5KB -5MB 0b;",
+            "set-column :duration 5m 5mo 5mb 250ms 10us 15ns 1h30m 1h30 2.5s 1d 1w 1y 1h2.5m3s;",
+            "set-column :c 1, 2, 3 true, false true1 falsey 'x', \"y\";",
+            "fill-null-or-empty :d 1:10='low',11:20='high';",
+            "set-column :e exp:{ a + b > 10 && c != 'x' || d =~ '^a' };",
+            "!custom-directive :f prop:{ key='value', limit=10 };",
+            "if (a > 5MB) { drop :g; } else if (b <= 2) { keep :h; } else { keep :i 1w; }",
+            "${macro} $a @b ~c ?: =^ !^ =$ !$ += -= *= /= %= &= |= ^= ^ [ ] % \\ .",
+            "set-column :s 'it\\'s' 'tab\\t' \"q\\\"uote\" '\\u00e9\\101\\7\\08' '';",
+            "\\n \\t \\u0041 \\777 \\u12",
+            // Escapes take ASCII hex digits only, not e.g. fullwidth digits
+            "set-column :s '\\u\uFF10\uFF11\uFF12\uFF13';",
+            "// line comment\n-- other comment\r\n/* block\n comment */ set-column --x a--b;",
+            "/* unterminated comment",
+            "columns :a:b :-x :1 ::",
+            "if\nelse\nfor\nexp\nprop\nversion\nload-directives\nifx elsewhere",
+            "\tset-column\r\n\f:a   1;",
+    };
+
+    private static final String[] ERRORS = {
+            "set-column :a #x;",
+            "#prag",
+            "set-column :a & 1;",
+            "set-column :a 'unterminated;\nnext line",
+            "a ` b",
+            "é",
+            // The grammar lexes 'a\\' ' as one string, leaving the last quote unmatched
+            "set-column :s 'a\\\\' 'b';",
+    };
+
+    @Test
+    public void testSameTokens() {
+        for (String recipe : CORPUS) {
+            assertSameTokens(recipe, false);
+        }
+    }
+
+    @Test
+    public void testSameErrors() {
+        for (String recipe : ERRORS) {
+            assertSameTokens(recipe, true);
+        }
+    }
+
+    @Test
+    public void testUnitLiterals() {
+        Lexer lexer = new DirectivesFastLexer(CharStreams.fromString("5m 5mb 5mo -5MB 5"));
+        Assert.assertEquals(DirectivesLexer.TIME_DURATION, lexer.nextToken().getType());
+        Assert.assertEquals(DirectivesLexer.BYTE_SIZE, lexer.nextToken().getType());
+        Assert.assertEquals(DirectivesLexer.TIME_DURATION, lexer.nextToken().getType());
+        Assert.assertEquals(DirectivesLexer.Identifier, lexer.nextToken().getType());
+        Assert.assertEquals(DirectivesLexer.Number, lexer.nextToken().getType());
+        Assert.assertEquals(Token.EOF, lexer.nextToken().getType());
+    }
+
+    private static void assertSameTokens(String recipe, boolean expectErrors) {
+        List<String> expectedErrors = new ArrayList<>();
+        List<String> expected = lex(new DirectivesLexer(CharStreams.fromString(recipe)), expectedErrors);
+        List<String> actualErrors = new ArrayList<>();
+        List<String> actual = lex(new DirectivesFastLexer(CharStreams.fromString(recipe)), actualErrors);
+
+        Assert.assertEquals(recipe, expected, actual);
+        Assert.assertEquals(recipe, expectedErrors, actualErrors);
+        Assert.assertEquals(recipe, expectErrors, !actualErrors.isEmpty());
+    }
+
+    /**
+     * Returns the type, text and position of every token, including EOF, and collects the errors.
+     */
+    private static List<String> lex(Lexer lexer, List<String> errors) {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors.add(line + ":" + charPositionInLine + " " + msg);
+            }
+        });
+        List<String> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = lexer.nextToken();
+            tokens.add(String.format("%s '%s' %d:%d [%d,%d]",
+                                     lexer.getVocabulary().getDisplayName(token.getType()), token.getText(),
+                                     token.getLine(), token.getCharPositionInLine(),
+                                     token.getStartIndex(), token.getStopIndex()));
+        } while (token.getType() != Token.EOF);
+        return tokens;
+    }
+}
@@ -0,0 +1,87 @@
+package io.cdap.directives.row;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.annotations.Categories;
+import io.cdap.wrangler.api.lineage.Lineage;
+import io.cdap.wrangler.api.lineage.Mutation;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UnitScanner;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+
+import java.util.List;
+
+/**
+ * Keeps the rows whose time duration column compares true against a duration, e.g.
+ * {@code filter-by-duration :latency '>=' 250ms}.
+ *
+ * <p>The duration is resolved to nanoseconds when the recipe is compiled, and each row costs one
+ * call to {@link TimeDuration#compareNanosecondsOrError}, which mostly decides from the digit
+ * count and the unit of the value without converting it. Rows without the column, or with a
+ * missing or invalid duration, are dropped.</p>
+ */
+@Plugin(type = Directive.TYPE)
+@Name(FilterByDuration.NAME)
+@Categories(categories = { "row", "data-quality" })
+@Description("Keeps rows whose time duration compares true against a duration, e.g. '>=' 250ms.")
+public class FilterByDuration implements Directive, Lineage {
+    public static final String NAME = "filter-by-duration";
+
+    private UnitFilter filter;
+
+    @Override
+    public UsageDefinition define() {
+        UsageDefinition.Builder builder = UsageDefinition.builder(NAME);
+        builder.define("column", TokenType.COLUMN_NAME);
+        builder.define("operator", TokenType.TEXT);
+        builder.define("duration", TokenType.TIME_DURATION);
+        return builder.build();
+    }
+
+    @Override
+    public void initialize(Arguments args) throws DirectiveParseException {
+        this.filter = UnitFilter.create(NAME, ((ColumnName) args.value("column")).value(),
+                                        ((Text) args.value("operator")).value(),
+                                        ((TimeDuration) args.value("duration")).getNanoseconds(),
+                                        FilterByDuration::compare);
+    }
+
+    @Override
+    public void destroy() {
+        // no-op
+    }
+
+    @Override
+    public List<Row> execute(List<Row> rows, ExecutorContext context) {
+        return filter.filter(rows);
+    }
+
+    private static int compare(Object value, long nanos) {
+        if (value instanceof TimeDuration) {
+            return Long.compare(((TimeDuration) value).getNanoseconds(), nanos);
+        }
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
+            return TimeDuration.compareNanosecondsOrError(text, 0, text.length(), nanos);
+        }
+        return UnitScanner.NOT_COMPARABLE;
+    }
+
+    @Override
+    public Mutation lineage() {
+        return Mutation.builder()
+                .readable("Filtered rows on time duration of column '%s' %s %d ns",
+                          filter.getColumn(), filter.getOperatorSymbol(), filter.getThreshold())
+                .relation(filter.getColumn(), filter.getColumn())
+                .build();
+    }
+}
@@ -0,0 +1,86 @@
+package io.cdap.directives.row;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.annotations.Categories;
+import io.cdap.wrangler.api.lineage.Lineage;
+import io.cdap.wrangler.api.lineage.Mutation;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UnitScanner;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+
+import java.util.List;
+
+/**
+ * Keeps the rows whose byte size column compares true against a size, e.g.
+ * {@code filter-by-size :response_bytes '>' 10MB}.
+ *
+ * <p>The size is resolved to bytes when the recipe is compiled, and each row costs one call to
+ * {@link ByteSize#compareBytesOrError}, which mostly decides from the digit count and the unit of
+ * the value without converting it. Rows without the column, or with a missing or invalid size, are
+ * dropped.</p>
+ */
+@Plugin(type = Directive.TYPE)
+@Name(FilterBySize.NAME)
+@Categories(categories = { "row", "data-quality" })
+@Description("Keeps rows whose byte size compares true against a size, e.g. '>' 10MB.")
+public class FilterBySize implements Directive, Lineage {
+    public static final String NAME = "filter-by-size";
+
+    private UnitFilter filter;
+
+    @Override
+    public UsageDefinition define() {
+        UsageDefinition.Builder builder = UsageDefinition.builder(NAME);
+        builder.define("column", TokenType.COLUMN_NAME);
+        builder.define("operator", TokenType.TEXT);
+        builder.define("size", TokenType.BYTE_SIZE);
+        return builder.build();
+    }
+
+    @Override
+    public void initialize(Arguments args) throws DirectiveParseException {
+        this.filter = UnitFilter.create(NAME, ((ColumnName) args.value("column")).value(),
+                                        ((Text) args.value("operator")).value(),
+                                        ((ByteSize) args.value("size")).getBytes(), FilterBySize::compare);
+    }
+
+    @Override
+    public void destroy() {
+        // no-op
+    }
+
+    @Override
+    public List<Row> execute(List<Row> rows, ExecutorContext context) {
+        return filter.filter(rows);
+    }
+
+    private static int compare(Object value, long bytes) {
+        if (value instanceof ByteSize) {
+            return Long.compare(((ByteSize) value).getBytes(), bytes);
+        }
+        if (value instanceof CharSequence) {
+            CharSequence text = (CharSequence) value;
+            return ByteSize.compareBytesOrError(text, 0, text.length(), bytes, ByteSize.UnitSystem.IEC);
+        }
+        return UnitScanner.NOT_COMPARABLE;
+    }
+
+    @Override
+    public Mutation lineage() {
+        return Mutation.builder()
+                .readable("Filtered rows on byte size of column '%s' %s %d bytes",
+                          filter.getColumn(), filter.getOperatorSymbol(), filter.getThreshold())
+                .relation(filter.getColumn(), filter.getColumn())
+                .build();
+    }
+}
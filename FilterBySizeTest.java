@@ -0,0 +1,123 @@
+package io.cdap.directives.row;
+
+import io.cdap.wrangler.TestingPipelineContext;
+import io.cdap.wrangler.TestingRig;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.Token;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+import io.cdap.wrangler.parser.MapArguments;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link FilterBySize} and {@link FilterByDuration}.
+ */
+public class FilterBySizeTest {
+
+    @Test
+    public void testFilterBySize() throws Exception {
+        FilterBySize directive = new FilterBySize();
+        directive.initialize(arguments("size", ">", new ByteSize("10MB")));
+
+        List<Row> rows = Arrays.asList(
+                new Row("size", "512KB"),
+                new Row("size", "10MB"),
+                new Row("size", "10.5MB"),
+                new Row("size", "1GB"),
+                new Row("size", new ByteSize("20MB")),
+                new Row("size", "invalid"),
+                new Row("size", null),
+                new Row("other", "1GB"));
+
+        Assert.assertEquals(Arrays.asList("10.5MB", "1GB", "20MB"), values(directive.execute(rows, null), "size"));
+    }
+
+    @Test
+    public void testFilterByDuration() throws Exception {
+        FilterByDuration directive = new FilterByDuration();
+        directive.initialize(arguments("latency", "<=", new TimeDuration("250ms")));
+
+        List<Row> rows = Arrays.asList(
+                new Row("latency", "99ms"),
+                new Row("latency", "250ms"),
+                new Row("latency", "251ms"),
+                new Row("latency", "0.2s"),
+                new Row("latency", "1m"),
+                new Row("latency", "100ms150ms"),
+                new Row("latency", new TimeDuration("1s")),
+                new Row("latency", "5x"));
+
+        Assert.assertEquals(Arrays.asList("99ms", "250ms", "0.2s", "100ms150ms"),
+                            values(directive.execute(rows, new TestingPipelineContext()), "latency"));
+    }
+
+    @Test
+    public void testOperators() throws Exception {
+        String[] operators = { "<", "<=", ">", ">=", "==", "!=" };
+        int[] expected = { 1, 2, 1, 2, 1, 2 };
+        for (int i = 0; i < operators.length; i++) {
+            FilterBySize directive = new FilterBySize();
+            directive.initialize(arguments("size", operators[i], new ByteSize("1KB")));
+            List<Row> rows = Arrays.asList(
+                    new Row("size", "1023B"), new Row("size", "1024B"), new Row("size", "1025B"));
+            List<Row> results = directive.execute(rows, null);
+            Assert.assertEquals(operators[i], expected[i], results.size());
+        }
+    }
+
+    @Test
+    public void testRecipe() throws Exception {
+        String[] recipe = new String[] {
+                "filter-by-size :size '>' 10MB",
+                "filter-by-duration :latency '<' 1s"
+        };
+
+        List<Row> rows = Arrays.asList(
+                new Row("size", "1GB").add("latency", "20ms"),
+                new Row("size", "1KB").add("latency", "20ms"),
+                new Row("size", "11MB").add("latency", "2s"),
+                new Row("size", "20MB").add("latency", "999ms"));
+
+        Assert.assertEquals(Arrays.asList("1GB", "20MB"), values(TestingRig.execute(recipe, rows), "size"));
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testInvalidOperator() throws Exception {
+        new FilterBySize().initialize(arguments("size", "=>", new ByteSize("1KB")));
+    }
+
+    private static List<String> values(List<Row> rows, String column) {
+        List<String> values = new ArrayList<>();
+        for (Row row : rows) {
+            Object value = row.getValue(column);
+            values.add(value instanceof Token ? ((Token) value).value().toString() : String.valueOf(value));
+        }
+        return values;
+    }
+
+    private static Arguments arguments(String column, String operator, Token threshold) throws DirectiveParseException {
+        Directive directive = threshold.type() == TokenType.BYTE_SIZE ? new FilterBySize() : new FilterByDuration();
+        UsageDefinition definition = directive.define();
+        TokenGroup group = new TokenGroup(new SourceInfo(1, 0, definition.getDirectiveName()));
+        group.add(new DirectiveName(definition.getDirectiveName()));
+        group.add(new ColumnName(column));
+        group.add(new Text(operator));
+        group.add(threshold);
+        return new MapArguments(definition, group);
+    }
+}
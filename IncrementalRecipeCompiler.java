@@ -0,0 +1,82 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileException;
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.Compiler;
+import io.cdap.wrangler.api.RecipeSymbol;
+import org.apache.twill.filesystem.Location;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link Compiler} for a recipe that is edited and compiled again and again, e.g. in an editor,
+ * that only parses the statements whose text changed since the previous compilation.
+ *
+ * <p>The recipe is split into {@link RecipeChunk}s at top-level {@code ';'}s. The symbols of every
+ * chunk of the previous compilation are kept by text; a chunk with the same text is spliced into
+ * the new {@code RecipeSymbol} with the line and column of its directives shifted to where it is
+ * now, and only new or changed chunks go through the parser and the {@link RecipeVisitor}. Editing
+ * one directive of a long recipe thus costs one lexer pass over the recipe plus the parse of that
+ * directive.</p>
+ *
+ * <p>A recipe with syntax errors is compiled as a whole by a {@link RecipeCompiler}, so errors are
+ * reported exactly as before. Only the chunks of the latest compilation are kept. Instances are
+ * meant to follow one recipe and are thread-safe; tokens of unchanged directives are shared between
+ * the symbols returned and must not be modified.</p>
+ */
+public final class IncrementalRecipeCompiler implements Compiler {
+    private final Compiler delegate = new RecipeCompiler();
+    private Map<String, CompiledChunk> previous = Collections.emptyMap();
+
+    @Override
+    public synchronized CompileStatus compile(String recipe) throws CompileException {
+        List<RecipeChunk> chunks = RecipeChunk.split(recipe);
+        RecipeSymbol symbol = chunks == null ? null : splice(chunks);
+        if (symbol == null) {
+            previous = Collections.emptyMap();
+            return delegate.compile(recipe);
+        }
+        return new CompileStatus(symbol);
+    }
+
+    /**
+     * Builds the symbols of a recipe from the symbols of its chunks, parsing only chunks that were
+     * not part of the previous recipe.
+     *
+     * @return the symbols, or {@code null} if a chunk does not compile
+     */
+    private RecipeSymbol splice(List<RecipeChunk> chunks) {
+        Map<String, CompiledChunk> current = new HashMap<>();
+        RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+        for (RecipeChunk chunk : chunks) {
+            CompiledChunk compiled = current.get(chunk.getText());
+            if (compiled == null) {
+                compiled = previous.get(chunk.getText());
+            }
+            if (compiled == null) {
+                compiled = CompiledChunk.compile(chunk.getText());
+                if (compiled == null) {
+                    return null;
+                }
+            }
+            current.put(chunk.getText(), compiled);
+            compiled.appendTo(builder, chunk.getLine(), chunk.getColumn());
+        }
+        previous = current;
+        return builder.build();
+    }
+
+    @Override
+    public CompileStatus compile(Location location) throws CompileException {
+        return compile(RecipeSources.read(location));
+    }
+
+    @Override
+    public CompileStatus compile(Path path) throws CompileException {
+        return compile(RecipeSources.read(path));
+    }
+}
@@ -0,0 +1,144 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.RecipeSymbol;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for {@link IncrementalRecipeCompiler}.
+ */
+public class IncrementalRecipeCompilerTest {
+
+    private static final String RECIPE = "#pragma version 2.0;\n"
+            + "#pragma load-directives my-directive;\n"
+            + "parse-as-csv :body ',' true;\n"
+            + "set-column :size 5MB; set-column :time 250ms;\n"
+            + "if (size > 1) {\n  drop :a;\n} else {\n  keep :b;\n}\n"
+            + "fill-null-or-empty :c 'x';\n";
+
+    @Test
+    public void testSameSymbolsAsFullCompile() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        assertSameSymbols(RECIPE, compiler.compile(RECIPE));
+    }
+
+    @Test
+    public void testOnlyChangedDirectivesParsed() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        CompileStatus before = compiler.compile(RECIPE);
+
+        String edited = RECIPE.replace(":time 250ms", ":time 1s");
+        CompileStatus after = compiler.compile(edited);
+        assertSameSymbols(edited, after);
+        Assert.assertEquals(1, reparsed(before, after));
+
+        Assert.assertEquals(0, reparsed(after, compiler.compile(edited)));
+    }
+
+    @Test
+    public void testPositionsShiftedAfterInsert() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        CompileStatus before = compiler.compile(RECIPE);
+
+        String edited = RECIPE.replace("parse-as-csv", "drop :x;\n\nparse-as-csv");
+        CompileStatus after = compiler.compile(edited);
+        assertSameSymbols(edited, after);
+        Assert.assertEquals(2, reparsed(before, after));
+    }
+
+    @Test
+    public void testColumnsShiftedOnSameLine() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        CompileStatus before = compiler.compile(RECIPE);
+
+        String edited = RECIPE.replace(":size 5MB", ":size 15MB");
+        CompileStatus after = compiler.compile(edited);
+        assertSameSymbols(edited, after);
+        Assert.assertEquals(1, reparsed(before, after));
+    }
+
+    @Test
+    public void testEditInsideIfBlock() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        CompileStatus before = compiler.compile(RECIPE);
+
+        String edited = RECIPE.replace("if (size > 1) {\n  drop :a;", "if ((size) > 2) {\n  drop :a;\n  drop :z;");
+        CompileStatus after = compiler.compile(edited);
+        assertSameSymbols(edited, after);
+        // The if block and the directive after it form one chunk
+        Assert.assertEquals(4, reparsed(before, after));
+    }
+
+    @Test
+    public void testSyntaxErrorsReportedAsWhole() throws Exception {
+        IncrementalRecipeCompiler compiler = new IncrementalRecipeCompiler();
+        CompileStatus before = compiler.compile(RECIPE);
+
+        CompileStatus status = compiler.compile(RECIPE + "set-column :d prop:{ a=1 ;\n");
+        Assert.assertFalse(status.isSuccess());
+        Assert.assertTrue(status.getErrors().hasNext());
+
+        // Nothing is kept from a recipe compiled as a whole
+        CompileStatus after = compiler.compile(RECIPE);
+        assertSameSymbols(RECIPE, after);
+        Assert.assertEquals(6, reparsed(before, after));
+    }
+
+    /**
+     * Returns the number of directives of {@code after} that were parsed again rather than reused
+     * from {@code before}, telling them apart by the identity of their tokens.
+     */
+    private static int reparsed(CompileStatus before, CompileStatus after) {
+        Set<Token> previous = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<TokenGroup> groups = before.getSymbols().iterator();
+        while (groups.hasNext()) {
+            previous.add(groups.next().get(0));
+        }
+        int count = 0;
+        groups = after.getSymbols().iterator();
+        while (groups.hasNext()) {
+            if (!previous.contains(groups.next().get(0))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void assertSameSymbols(String recipe, CompileStatus status) throws Exception {
+        Assert.assertTrue(status.isSuccess());
+        RecipeSymbol expected = new RecipeCompiler().compile(recipe).getSymbols();
+        RecipeSymbol actual = status.getSymbols();
+        Assert.assertEquals(expected.getVersion(), actual.getVersion());
+        Assert.assertEquals(expected.getLoadableDirectives(), actual.getLoadableDirectives());
+        Assert.assertEquals(describe(expected), describe(actual));
+    }
+
+    /**
+     * Returns the position, source and tokens of every directive.
+     */
+    private static List<String> describe(RecipeSymbol symbol) {
+        List<String> directives = new ArrayList<>();
+        Iterator<TokenGroup> groups = symbol.iterator();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            StringBuilder sb = new StringBuilder(group.getSourceInfo().toString());
+            Iterator<Token> tokens = group.iterator();
+            while (tokens.hasNext()) {
+                Token token = tokens.next();
+                sb.append(' ').append(token.type()).append('=').append(token.toJson());
+            }
+            directives.add(sb.toString());
+        }
+        return directives;
+    }
+}
@@ -0,0 +1,111 @@
+package io.cdap.directives.aggregates;
+
+import java.math.BigInteger;
+
+/**
+ * A signed 128-bit running sum held as a high and a low {@code long}, for totals such as monthly
+ * byte counts that can grow past {@link Long#MAX_VALUE}.
+ *
+ * <p>Additions propagate the unsigned carry out of the low word instead of checking for overflow,
+ * so they never fail and never fall back to {@link BigInteger}. Conversions to {@code double} or
+ * {@link BigInteger} are meant to happen once, when a result is produced. Instances are not
+ * thread-safe.</p>
+ */
+public final class Int128Accumulator {
+    private static final double TWO_POW_64 = 0x1p64;
+
+    private long high;
+    private long low;
+
+    public Int128Accumulator() {
+    }
+
+    public Int128Accumulator(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Adds a signed value.
+     */
+    public void add(long value) {
+        long sum = low + value;
+        high += (value >> 63) + carry(low, value, sum);
+        low = sum;
+    }
+
+    /**
+     * Adds another 128-bit total.
+     */
+    public void add(Int128Accumulator other) {
+        long sum = low + other.low;
+        high += other.high + carry(low, other.low, sum);
+        low = sum;
+    }
+
+    /**
+     * Adds the valid values among the first {@code length}, using the validity bitmap layout of
+     * {@link io.cdap.wrangler.api.parser.UnitColumns}, or all of them if {@code validity} is
+     * {@code null}. Each bitmap word is summed by {@link LongKernels#sum(long[], long[], int, Int128Accumulator)}
+     * in unrolled 64-bit lanes, and only the lane totals are carried into 128 bits.
+     */
+    public void add(long[] values, long[] validity, int length) {
+        LongKernels.sum(values, validity, length, this);
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Returns whether the total is within the range of a {@code long}.
+     */
+    public boolean fitsInLong() {
+        return high == (low >> 63);
+    }
+
+    /**
+     * Returns the total as a {@code long}.
+     *
+     * @throws ArithmeticException if the total does not fit in a {@code long}
+     */
+    public long longValueExact() {
+        if (!fitsInLong()) {
+            throw new ArithmeticException("Total " + this + " does not fit in a long");
+        }
+        return low;
+    }
+
+    /**
+     * Returns the total as the nearest {@code double}.
+     */
+    public double doubleValue() {
+        if (fitsInLong()) {
+            return low;
+        }
+        // Exact unsigned value of the low word, then one rounding when adding the high word
+        double unsignedLow = (double) (low >>> 1) * 2.0 + (low & 1L);
+        return high * TWO_POW_64 + unsignedLow;
+    }
+
+    public BigInteger toBigInteger() {
+        BigInteger unsignedLow = BigInteger.valueOf(low >>> 1).shiftLeft(1).or(BigInteger.valueOf(low & 1L));
+        return BigInteger.valueOf(high).shiftLeft(64).add(unsignedLow);
+    }
+
+    @Override
+    public String toString() {
+        return fitsInLong() ? Long.toString(low) : toBigInteger().toString();
+    }
+
+    /**
+     * Returns 1 if the unsigned addition {@code a + b = sum} carried out of bit 63, otherwise 0.
+     */
+    private static long carry(long a, long b, long sum) {
+        return ((a & b) | ((a | b) & ~sum)) >>> 63;
+    }
+}
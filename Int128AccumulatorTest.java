@@ -0,0 +1,71 @@
+package io.cdap.directives.aggregates;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Tests for {@link Int128Accumulator}.
+ */
+public class Int128AccumulatorTest {
+
+    @Test
+    public void testCarryPastLongRange() {
+        Int128Accumulator total = new Int128Accumulator();
+        for (int i = 0; i < 4; i++) {
+            total.add(Long.MAX_VALUE);
+        }
+        Assert.assertFalse(total.fitsInLong());
+        Assert.assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(4)), total.toBigInteger());
+
+        // Subtracting brings the total back into range
+        for (int i = 0; i < 3; i++) {
+            total.add(-Long.MAX_VALUE);
+        }
+        Assert.assertTrue(total.fitsInLong());
+        Assert.assertEquals(Long.MAX_VALUE, total.longValueExact());
+    }
+
+    @Test
+    public void testMatchesBigInteger() {
+        Random random = new Random(42);
+        Int128Accumulator total = new Int128Accumulator();
+        Int128Accumulator batch = new Int128Accumulator();
+        long[] values = new long[10000];
+        BigInteger expected = BigInteger.ZERO;
+        for (int i = 0; i < values.length; i++) {
+            long x = random.nextLong();
+            values[i] = x;
+            total.add(x);
+            expected = expected.add(BigInteger.valueOf(x));
+        }
+        batch.add(values, null, values.length);
+        Assert.assertEquals(expected, total.toBigInteger());
+        Assert.assertEquals(expected, batch.toBigInteger());
+        Assert.assertEquals(expected.doubleValue(), total.doubleValue(), Math.ulp(total.doubleValue()));
+    }
+
+    @Test
+    public void testBatchAdd() {
+        long[] values = { Long.MAX_VALUE, Long.MAX_VALUE, -1L, Long.MAX_VALUE };
+        long[] validity = { 0b1011L };
+        Int128Accumulator total = new Int128Accumulator();
+        total.add(values, validity, values.length);
+        Assert.assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(3)), total.toBigInteger());
+
+        Int128Accumulator all = new Int128Accumulator();
+        all.add(values, null, values.length);
+        Assert.assertEquals(total.toBigInteger().subtract(BigInteger.ONE), all.toBigInteger());
+        Assert.assertEquals("27670116110564327420", all.toString());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testLongValueExactOverflow() {
+        Int128Accumulator total = new Int128Accumulator();
+        total.add(Long.MAX_VALUE);
+        total.add(1L);
+        total.longValueExact();
+    }
+}
@@ -0,0 +1,224 @@
+package io.cdap.directives.aggregates;
+
+import io.cdap.cdap.api.annotation.Description;
+import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.api.annotation.Plugin;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.Directive;
+import io.cdap.wrangler.api.DirectiveExecutionException;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Optional;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.TransientStore;
+import io.cdap.wrangler.api.TransientVariableScope;
+import io.cdap.wrangler.api.annotations.Categories;
+import io.cdap.wrangler.api.lineage.Lineage;
+import io.cdap.wrangler.api.lineage.Mutation;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UnitColumns;
+import io.cdap.wrangler.api.parser.UsageDefinition;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Counts the values of a byte size or time duration column into power-of-two buckets, e.g.
+ * {@code histogram-log2 :response_bytes 'size' :host}.
+ *
+ * <p>Sizes are bucketed in bytes and durations in milliseconds. Bucket {@code 0} holds the value
+ * {@code 0}, and bucket {@code k} holds the values in {@code [2^(k-1), 2^k)}, so the bucket of a
+ * value is {@code 64 - Long.numberOfLeadingZeros(value)} and every non-negative {@code long} fits in
+ * 64 buckets. Each group keeps one {@code long[64]} of counts in the transient store, which makes
+ * memory independent of the number of rows. Missing, invalid and negative values are not
+ * counted.</p>
+ *
+ * <p>Like {@link SizeTimeAggregator}, rows pass through unchanged; the histogram is read with
+ * {@link #getAggregationResult(ExecutorContext)} after all data has been processed.</p>
+ */
+@Plugin(type = Directive.TYPE)
+@Name(Log2Histogram.NAME)
+@Categories(categories = { "aggregator", "statistics" })
+@Description("Counts byte sizes or time durations into power-of-two buckets, optionally per group.")
+public class Log2Histogram implements Directive, Lineage {
+    public static final String NAME = "histogram-log2";
+
+    static final int BUCKETS = 64;
+
+    private static final String HISTOGRAM_KEY_PREFIX = "histogram_log2_";
+    private static final String[] IEC_UNITS = { "B", "KiB", "MiB", "GiB", "TiB", "PiB", "EiB" };
+
+    private String column;
+    private boolean sizes;
+    private String groupColumn;
+    private String key;
+
+    @Override
+    public UsageDefinition define() {
+        UsageDefinition.Builder builder = UsageDefinition.builder(NAME);
+        builder.define("column", TokenType.COLUMN_NAME);
+        builder.define("value-type", TokenType.TEXT);
+        builder.define("group-column", TokenType.COLUMN_NAME, Optional.TRUE);
+        return builder.build();
+    }
+
+    @Override
+    public void initialize(Arguments args) throws DirectiveParseException {
+        this.column = ((ColumnName) args.value("column")).value();
+        String type = ((Text) args.value("value-type")).value().trim().toLowerCase();
+        if ("size".equals(type)) {
+            this.sizes = true;
+        } else if ("duration".equals(type)) {
+            this.sizes = false;
+        } else {
+            throw new DirectiveParseException(
+                    NAME, String.format("Invalid value type '%s'. Supported value types are size, duration", type));
+        }
+        this.groupColumn = args.contains("group-column") ? ((ColumnName) args.value("group-column")).value() : null;
+        // Histograms of the same column with another value type or grouping are kept apart
+        this.key = HISTOGRAM_KEY_PREFIX + type + ":" + column + ":" + (groupColumn == null ? "" : groupColumn);
+    }
+
+    @Override
+    public void destroy() {
+        // no-op
+    }
+
+    @Override
+    public List<Row> execute(List<Row> rows, ExecutorContext context) throws DirectiveExecutionException {
+        // Collect the column and the group of each row that has the column
+        int length = 0;
+        Object[] values = new Object[rows.size()];
+        String[] groups = new String[rows.size()];
+        for (Row row : rows) {
+            int idx = row.find(column);
+            if (idx == -1) {
+                continue;
+            }
+            values[length] = row.getValue(idx);
+            if (groupColumn != null) {
+                int groupIdx = row.find(groupColumn);
+                Object group = groupIdx == -1 ? null : row.getValue(groupIdx);
+                groups[length] = group == null ? null : group.toString();
+            }
+            length++;
+        }
+
+        // Parse the whole batch at once
+        long[] parsed = new long[length];
+        long[] validity = UnitColumns.newValidity(length);
+        if (sizes) {
+            UnitColumns.parseBytes(values, length, parsed, validity, ByteSize.UnitSystem.IEC);
+        } else {
+            UnitColumns.parseNanoseconds(values, length, parsed, validity);
+        }
+
+        Map<String, long[]> histograms = histograms(context.getTransientStore());
+        long[] counts = null;
+        String currentGroup = null;
+        for (int i = 0; i < length; i++) {
+            long value = sizes ? parsed[i] : parsed[i] / 1000000L;
+            if (!UnitColumns.isValid(validity, i) || value < 0) {
+                continue;
+            }
+            // Rows of a group tend to arrive together, so only look up the counts when the group changes
+            if (counts == null || !Objects.equals(currentGroup, groups[i])) {
+                currentGroup = groups[i];
+                counts = histograms.computeIfAbsent(currentGroup, g -> new long[BUCKETS]);
+            }
+            counts[bucket(value)]++;
+        }
+
+        // Return unchanged rows during normal processing
+        return rows;
+    }
+
+    /**
+     * Returns the bucket of a non-negative value.
+     */
+    static int bucket(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Finalizes the histogram, returning one row per non-empty bucket with the group, if any, the
+     * human-readable bounds of the bucket and its count. The lower bound is inclusive and the upper
+     * bound exclusive. Groups appear in the order they were first seen.
+     *
+     * This should be called after all data has been processed
+     */
+    public List<Row> getAggregationResult(ExecutorContext context) {
+        TransientStore store = context.getTransientStore();
+        List<Row> results = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : histograms(store).entrySet()) {
+            long[] counts = entry.getValue();
+            for (int k = 0; k < BUCKETS; k++) {
+                if (counts[k] == 0) {
+                    continue;
+                }
+                Row row = new Row();
+                if (groupColumn != null) {
+                    row.add(groupColumn, entry.getKey());
+                }
+                row.add("bucket", k);
+                row.add("lower", k == 0 ? format(-1) : format(k - 1));
+                row.add("upper", format(k));
+                row.add("count", counts[k]);
+                results.add(row);
+            }
+        }
+
+        // Reset the histogram for next use
+        store.set(TransientVariableScope.GLOBAL, key, new LinkedHashMap<String, long[]>());
+        return results;
+    }
+
+    private Map<String, long[]> histograms(TransientStore store) {
+        Map<String, long[]> histograms = store.get(key);
+        if (histograms == null) {
+            histograms = new LinkedHashMap<>();
+            store.set(TransientVariableScope.GLOBAL, key, histograms);
+        }
+        return histograms;
+    }
+
+    /**
+     * Formats {@code 2^exponent}, or 0 for an exponent of -1, in the unit of the column, e.g.
+     * {@code 8KiB} or {@code 1.024s}. Powers of two are exact in both notations.
+     */
+    private String format(int exponent) {
+        if (sizes) {
+            if (exponent < 0) {
+                return "0B";
+            }
+            return (1L << (exponent % 10)) + IEC_UNITS[exponent / 10];
+        }
+        if (exponent < 0) {
+            return "0ms";
+        }
+        if (exponent < 10) {
+            return (1L << exponent) + "ms";
+        }
+        // Milliseconds have three decimals in seconds, and 2^63 does not fit in a long
+        return new BigDecimal(BigInteger.ONE.shiftLeft(exponent), 3).stripTrailingZeros().toPlainString() + "s";
+    }
+
+    @Override
+    public Mutation lineage() {
+        Mutation.Builder builder = Mutation.builder()
+                .readable("Counted the values of column '%s' into power-of-two buckets", column)
+                .relation(column, column);
+        if (groupColumn != null) {
+            builder.relation(groupColumn, groupColumn);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,145 @@
+package io.cdap.directives.aggregates;
+
+import io.cdap.wrangler.TestingPipelineContext;
+import io.cdap.wrangler.TestingRig;
+import io.cdap.wrangler.api.Arguments;
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.ExecutorContext;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.parser.MapArguments;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link Log2Histogram}.
+ */
+public class Log2HistogramTest {
+
+    @Test
+    public void testBucket() {
+        Assert.assertEquals(0, Log2Histogram.bucket(0));
+        Assert.assertEquals(1, Log2Histogram.bucket(1));
+        Assert.assertEquals(2, Log2Histogram.bucket(2));
+        Assert.assertEquals(2, Log2Histogram.bucket(3));
+        Assert.assertEquals(11, Log2Histogram.bucket(1024));
+        Assert.assertEquals(63, Log2Histogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testSizeHistogram() throws Exception {
+        Log2Histogram directive = new Log2Histogram();
+        directive.initialize(arguments("size", "size", null));
+        ExecutorContext context = new TestingPipelineContext();
+
+        List<Row> rows = Arrays.asList(
+                new Row("size", "0B"),
+                new Row("size", "1KB"),
+                new Row("size", "1.5KB"),
+                new Row("size", new ByteSize("2047B")),
+                new Row("size", "7EB"),
+                new Row("size", "invalid"),
+                new Row("other", "1KB"));
+        Assert.assertSame(rows, directive.execute(rows, context));
+        directive.execute(Arrays.asList(new Row("size", "1KB")), context);
+
+        Assert.assertEquals(Arrays.asList("0B-1B:1", "1KiB-2KiB:4", "4EiB-8EiB:1"),
+                            describe(directive.getAggregationResult(context), null));
+        Assert.assertTrue(directive.getAggregationResult(context).isEmpty());
+    }
+
+    @Test
+    public void testDurationHistogramByGroup() throws Exception {
+        Log2Histogram directive = new Log2Histogram();
+        directive.initialize(arguments("latency", "duration", "host"));
+        ExecutorContext context = new TestingPipelineContext();
+
+        directive.execute(Arrays.asList(
+                new Row("latency", "0.5ms").add("host", "a"),
+                new Row("latency", "100ms").add("host", "a"),
+                new Row("latency", new TimeDuration("1.5s")).add("host", "b"),
+                new Row("latency", "120ms").add("host", "a"),
+                new Row("latency", "1m").add("host", "b")), context);
+
+        Assert.assertEquals(Arrays.asList("a 0ms-1ms:1", "a 64ms-128ms:2", "b 1.024s-2.048s:1",
+                                          "b 32.768s-65.536s:1"),
+                            describe(directive.getAggregationResult(context), "host"));
+    }
+
+    @Test
+    public void testHistogramsOfSameColumnKeptApart() throws Exception {
+        Log2Histogram sizes = new Log2Histogram();
+        sizes.initialize(arguments("value", "size", null));
+        Log2Histogram durations = new Log2Histogram();
+        durations.initialize(arguments("value", "duration", null));
+        Log2Histogram grouped = new Log2Histogram();
+        grouped.initialize(arguments("value", "size", "host"));
+        ExecutorContext context = new TestingPipelineContext();
+
+        List<Row> rows = Arrays.asList(new Row("value", "1KB").add("host", "a"),
+                                       new Row("value", "1ms").add("host", "a"));
+        sizes.execute(rows, context);
+        durations.execute(rows, context);
+        grouped.execute(rows, context);
+
+        Assert.assertEquals(Arrays.asList("1KiB-2KiB:1"), describe(sizes.getAggregationResult(context), null));
+        Assert.assertEquals(Arrays.asList("1ms-2ms:1"), describe(durations.getAggregationResult(context), null));
+        Assert.assertEquals(Arrays.asList("a 1KiB-2KiB:1"), describe(grouped.getAggregationResult(context), "host"));
+    }
+
+    @Test
+    public void testRecipe() throws Exception {
+        String[] recipe = new String[] {
+                "histogram-log2 :latency 'duration' :host"
+        };
+        ExecutorContext context = new TestingPipelineContext();
+
+        List<Row> rows = Arrays.asList(
+                new Row("latency", "3ms").add("host", "a"),
+                new Row("latency", "2ms").add("host", "a"),
+                new Row("latency", "1.5s").add("host", "b"));
+        Assert.assertEquals(3, TestingRig.execute(recipe, rows, context).size());
+
+        // The histogram is kept in the transient store, so a directive with the same arguments reads it back
+        Log2Histogram directive = new Log2Histogram();
+        directive.initialize(arguments("latency", "duration", "host"));
+        Assert.assertEquals(Arrays.asList("a 2ms-4ms:2", "b 1.024s-2.048s:1"),
+                            describe(directive.getAggregationResult(context), "host"));
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testInvalidValueType() throws Exception {
+        new Log2Histogram().initialize(arguments("size", "bytes", null));
+    }
+
+    private static List<String> describe(List<Row> rows, String groupColumn) {
+        List<String> buckets = new ArrayList<>();
+        for (Row row : rows) {
+            String group = groupColumn == null ? "" : row.getValue(groupColumn) + " ";
+            buckets.add(group + row.getValue("lower") + "-" + row.getValue("upper") + ":" + row.getValue("count"));
+        }
+        return buckets;
+    }
+
+    private static Arguments arguments(String column, String valueType, String groupColumn)
+            throws DirectiveParseException {
+        TokenGroup group = new TokenGroup(new SourceInfo(1, 0, Log2Histogram.NAME));
+        group.add(new DirectiveName(Log2Histogram.NAME));
+        group.add(new ColumnName(column));
+        group.add(new Text(valueType));
+        if (groupColumn != null) {
+            group.add(new ColumnName(groupColumn));
+        }
+        return new MapArguments(new Log2Histogram().define(), group);
+    }
+}
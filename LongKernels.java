@@ -0,0 +1,166 @@
+package io.cdap.directives.aggregates;
+
+/**
+ * Aggregation kernels over primitive {@code long} columns with optional validity bitmaps, in the
+ * layout filled by {@link io.cdap.wrangler.api.parser.UnitColumns}: bit {@code i} of word
+ * {@code i >>> 6} is set when value {@code i} is valid. A {@code null} bitmap means all values
+ * are valid.
+ *
+ * <p>The kernels process one bitmap word at a time with four independent accumulator lanes and no
+ * data-dependent branches, so that the JIT can keep several additions in flight or vectorize them.
+ * {@link #sum} tracks overflow per lane with the sign-bit test and folds the lanes of each word
+ * into an {@link Int128Accumulator}, whose high word carries whatever overflows a {@code long}; a
+ * word is only re-added value by value when one of its lanes overflowed.</p>
+ */
+public final class LongKernels {
+    private LongKernels() {
+    }
+
+    /**
+     * Returns the sum of the valid values among the first {@code length}.
+     *
+     * @throws ArithmeticException if the sum does not fit in a {@code long}
+     */
+    public static long sum(long[] values, long[] validity, int length) {
+        Int128Accumulator total = new Int128Accumulator();
+        sum(values, validity, length, total);
+        return total.longValueExact();
+    }
+
+    /**
+     * Adds the valid values among the first {@code length} to a 128-bit total, which cannot
+     * overflow.
+     */
+    public static void sum(long[] values, long[] validity, int length, Int128Accumulator total) {
+        for (int base = 0; base < length; base += 64) {
+            int end = Math.min(length, base + 64);
+            long bits = word(validity, base);
+
+            long s0 = 0L;
+            long s1 = 0L;
+            long s2 = 0L;
+            long s3 = 0L;
+            // The sign bit of o<n> is set once lane n overflowed
+            long o0 = 0L;
+            long o1 = 0L;
+            long o2 = 0L;
+            long o3 = 0L;
+            int i = base;
+            for (; i + 3 < end; i += 4) {
+                long v0 = values[i] & -((bits >>> i) & 1L);
+                long v1 = values[i + 1] & -((bits >>> (i + 1)) & 1L);
+                long v2 = values[i + 2] & -((bits >>> (i + 2)) & 1L);
+                long v3 = values[i + 3] & -((bits >>> (i + 3)) & 1L);
+                long r0 = s0 + v0;
+                long r1 = s1 + v1;
+                long r2 = s2 + v2;
+                long r3 = s3 + v3;
+                o0 |= (s0 ^ r0) & (v0 ^ r0);
+                o1 |= (s1 ^ r1) & (v1 ^ r1);
+                o2 |= (s2 ^ r2) & (v2 ^ r2);
+                o3 |= (s3 ^ r3) & (v3 ^ r3);
+                s0 = r0;
+                s1 = r1;
+                s2 = r2;
+                s3 = r3;
+            }
+            for (; i < end; i++) {
+                long v0 = values[i] & -((bits >>> i) & 1L);
+                long r0 = s0 + v0;
+                o0 |= (s0 ^ r0) & (v0 ^ r0);
+                s0 = r0;
+            }
+
+            if ((o0 | o1 | o2 | o3) >= 0) {
+                // The lanes are exact, and the 128-bit total carries any overflow of their sum
+                total.add(s0);
+                total.add(s1);
+                total.add(s2);
+                total.add(s3);
+                continue;
+            }
+
+            // Slow path: a lane overflowed, so add the values of this word one at a time
+            for (i = base; i < end; i++) {
+                if ((bits & (1L << i)) != 0) {
+                    total.add(values[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest valid value among the first {@code length}, or {@link Long#MAX_VALUE}
+     * if none is valid.
+     */
+    public static long min(long[] values, long[] validity, int length) {
+        long m0 = Long.MAX_VALUE;
+        long m1 = Long.MAX_VALUE;
+        for (int base = 0; base < length; base += 64) {
+            int end = Math.min(length, base + 64);
+            long bits = word(validity, base);
+            int i = base;
+            for (; i + 1 < end; i += 2) {
+                m0 = Math.min(m0, select(values[i], Long.MAX_VALUE, bits >>> i));
+                m1 = Math.min(m1, select(values[i + 1], Long.MAX_VALUE, bits >>> (i + 1)));
+            }
+            if (i < end) {
+                m0 = Math.min(m0, select(values[i], Long.MAX_VALUE, bits >>> i));
+            }
+        }
+        return Math.min(m0, m1);
+    }
+
+    /**
+     * Returns the largest valid value among the first {@code length}, or {@link Long#MIN_VALUE}
+     * if none is valid.
+     */
+    public static long max(long[] values, long[] validity, int length) {
+        long m0 = Long.MIN_VALUE;
+        long m1 = Long.MIN_VALUE;
+        for (int base = 0; base < length; base += 64) {
+            int end = Math.min(length, base + 64);
+            long bits = word(validity, base);
+            int i = base;
+            for (; i + 1 < end; i += 2) {
+                m0 = Math.max(m0, select(values[i], Long.MIN_VALUE, bits >>> i));
+                m1 = Math.max(m1, select(values[i + 1], Long.MIN_VALUE, bits >>> (i + 1)));
+            }
+            if (i < end) {
+                m0 = Math.max(m0, select(values[i], Long.MIN_VALUE, bits >>> i));
+            }
+        }
+        return Math.max(m0, m1);
+    }
+
+    /**
+     * Returns the number of valid values among the first {@code length}.
+     */
+    public static int count(long[] validity, int length) {
+        if (validity == null) {
+            return length;
+        }
+        int count = 0;
+        int words = length >>> 6;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(validity[w]);
+        }
+        int rest = length & 63;
+        if (rest != 0) {
+            count += Long.bitCount(validity[words] & ((1L << rest) - 1));
+        }
+        return count;
+    }
+
+    private static long word(long[] validity, int base) {
+        return validity == null ? -1L : validity[base >>> 6];
+    }
+
+    /**
+     * Returns {@code value} if the lowest bit of {@code bit} is set, otherwise {@code identity}.
+     */
+    private static long select(long value, long identity, long bit) {
+        long mask = -(bit & 1L);
+        return (value & mask) | (identity & ~mask);
+    }
+}
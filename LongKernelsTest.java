@@ -0,0 +1,89 @@
+package io.cdap.directives.aggregates;
+
+import io.cdap.wrangler.api.parser.UnitColumns;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link LongKernels}.
+ */
+public class LongKernelsTest {
+
+    @Test
+    public void testKernelsMatchScalarLoop() {
+        // Lengths that leave partial words and partial unrolled blocks
+        for (int length : new int[] { 0, 1, 3, 63, 64, 65, 131 }) {
+            long[] values = new long[length];
+            long[] validity = UnitColumns.newValidity(length);
+            long sum = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                values[i] = (i * 7919L) % 1000 - 500;
+                if (i % 5 != 2) {
+                    validity[i >>> 6] |= 1L << i;
+                    sum += values[i];
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                    count++;
+                }
+            }
+            Assert.assertEquals(sum, LongKernels.sum(values, validity, length));
+            Assert.assertEquals(min, LongKernels.min(values, validity, length));
+            Assert.assertEquals(max, LongKernels.max(values, validity, length));
+            Assert.assertEquals(count, LongKernels.count(validity, length));
+        }
+    }
+
+    @Test
+    public void testAllValid() {
+        long[] values = { 5, -2, 9, 4, 1 };
+        Assert.assertEquals(17L, LongKernels.sum(values, null, values.length));
+        Assert.assertEquals(-2L, LongKernels.min(values, null, values.length));
+        Assert.assertEquals(9L, LongKernels.max(values, null, values.length));
+        Assert.assertEquals(5, LongKernels.count(null, values.length));
+        // Only the first length values are considered
+        Assert.assertEquals(12L, LongKernels.sum(values, null, 3));
+    }
+
+    @Test
+    public void testLaneOverflowOnly() {
+        // Lane 0 overflows, but the running sum in value order does not
+        long[] values = { Long.MAX_VALUE - 1, -10, 0, 0, 5 };
+        Assert.assertEquals(Long.MAX_VALUE - 6, LongKernels.sum(values, null, values.length));
+    }
+
+    @Test
+    public void testWideSum() {
+        // The running sum leaves the long range and comes back
+        long[] values = { Long.MAX_VALUE, 1, -5 };
+        Assert.assertEquals(Long.MAX_VALUE - 4, LongKernels.sum(values, null, values.length));
+
+        long[] large = new long[131];
+        Arrays.fill(large, Long.MAX_VALUE);
+        Int128Accumulator total = new Int128Accumulator();
+        LongKernels.sum(large, null, large.length, total);
+        Assert.assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(131)),
+                            total.toBigInteger());
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflow() {
+        long[] values = { Long.MAX_VALUE, 1, 2, 3, 4 };
+        LongKernels.sum(values, null, values.length);
+    }
+
+    @Test
+    public void testInvalidValuesIgnored() {
+        long[] values = { Long.MAX_VALUE, 3, Long.MIN_VALUE };
+        long[] validity = { 2L };
+        Assert.assertEquals(3L, LongKernels.sum(values, validity, values.length));
+        Assert.assertEquals(3L, LongKernels.min(values, validity, values.length));
+        Assert.assertEquals(3L, LongKernels.max(values, validity, values.length));
+        Assert.assertEquals(Long.MAX_VALUE, LongKernels.min(values, new long[1], values.length));
+    }
+}
@@ -0,0 +1,125 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileException;
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.Compiler;
+import io.cdap.wrangler.api.RecipeSymbol;
+import org.apache.twill.filesystem.Location;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link Compiler} that parses and visits the statements of very large recipes, e.g. generated
+ * ones, on several threads.
+ *
+ * <p>The recipe is split into {@link RecipeChunk}s at top-level {@code ';'}s, which never cuts an
+ * {@code if} block or a macro. Consecutive chunks are grouped into a few batches per thread, each
+ * batch is compiled by its own parser and {@link RecipeVisitor}, and the token groups of the
+ * batches are concatenated in order, with the line and column of every directive shifted to its
+ * position in the recipe. The result is the same as the one of a {@link RecipeCompiler}.</p>
+ *
+ * <p>Recipes with fewer than {@link #MIN_PARALLEL_STATEMENTS} statements, and recipes with syntax
+ * errors, are compiled as a whole on the calling thread, so errors are reported exactly as
+ * before.</p>
+ */
+public final class ParallelRecipeCompiler implements Compiler {
+    /**
+     * Recipes with fewer statements are not worth splitting.
+     */
+    public static final int MIN_PARALLEL_STATEMENTS = 256;
+
+    // Batches per thread, so that threads finishing early can pick up more work
+    private static final int BATCHES_PER_THREAD = 4;
+
+    private final Compiler delegate = new RecipeCompiler();
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    /**
+     * Creates a compiler that runs on the common fork-join pool.
+     */
+    public ParallelRecipeCompiler() {
+        this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param executor executor that runs the batches, which remains owned by the caller
+     * @param parallelism number of threads of the executor available for compiling
+     */
+    public ParallelRecipeCompiler(ExecutorService executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public CompileStatus compile(String recipe) throws CompileException {
+        List<RecipeChunk> chunks = RecipeChunk.split(recipe);
+        if (chunks == null || chunks.size() < MIN_PARALLEL_STATEMENTS) {
+            return delegate.compile(recipe);
+        }
+
+        List<RecipeChunk> batches = batch(chunks);
+        List<Future<CompiledChunk>> results = new ArrayList<>();
+        try {
+            for (RecipeChunk batch : batches) {
+                results.add(executor.submit(() -> CompiledChunk.compile(batch.getText())));
+            }
+
+            RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+            for (int i = 0; i < batches.size(); i++) {
+                CompiledChunk compiled = results.get(i).get();
+                if (compiled == null) {
+                    // Report syntax errors with their positions in the whole recipe
+                    return delegate.compile(recipe);
+                }
+                compiled.appendTo(builder, batches.get(i).getLine(), batches.get(i).getColumn());
+            }
+            return new CompileStatus(builder.build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompileException("Interrupted while compiling recipe", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompileException("Failed to compile recipe", e);
+        } finally {
+            for (Future<CompiledChunk> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public CompileStatus compile(Location location) throws CompileException {
+        return compile(RecipeSources.read(location));
+    }
+
+    @Override
+    public CompileStatus compile(Path path) throws CompileException {
+        return compile(RecipeSources.read(path));
+    }
+
+    /**
+     * Groups consecutive chunks into batches of about the same number of statements.
+     */
+    List<RecipeChunk> batch(List<RecipeChunk> chunks) {
+        int count = Math.min(chunks.size(), parallelism * BATCHES_PER_THREAD);
+        List<RecipeChunk> batches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((long) chunks.size() * i / count);
+            int to = (int) ((long) chunks.size() * (i + 1) / count);
+            batches.add(RecipeChunk.join(chunks.subList(from, to)));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,112 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.RecipeSymbol;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for {@link ParallelRecipeCompiler}.
+ */
+public class ParallelRecipeCompilerTest {
+
+    @Test
+    public void testSameSymbolsAsSequential() throws Exception {
+        assertSameSymbolsAsSequential(generate(2000), 4);
+    }
+
+    @Test
+    public void testUnevenBatches() throws Exception {
+        String recipe = generate(1001);
+        List<RecipeChunk> chunks = RecipeChunk.split(recipe);
+        List<RecipeChunk> batches = new ParallelRecipeCompiler(ForkJoinPool.commonPool(), 3).batch(chunks);
+        Assert.assertEquals(12, batches.size());
+
+        StringBuilder joined = new StringBuilder();
+        for (RecipeChunk batch : batches) {
+            joined.append(batch.getText());
+        }
+        Assert.assertEquals(RecipeChunk.join(chunks).getText(), joined.toString());
+
+        assertSameSymbolsAsSequential(recipe, 3);
+    }
+
+    @Test
+    public void testSyntaxErrorsReported() throws Exception {
+        String recipe = generate(1000) + "set-column :x prop:{ a=1 ;\n" + generate(10);
+        CompileStatus status = new ParallelRecipeCompiler().compile(recipe);
+        Assert.assertFalse(status.isSuccess());
+        Assert.assertTrue(status.getErrors().hasNext());
+    }
+
+    @Test
+    public void testSmallRecipe() throws Exception {
+        CompileStatus status = new ParallelRecipeCompiler().compile("drop :a; keep :b;");
+        Assert.assertTrue(status.isSuccess());
+        Assert.assertEquals(2, status.getSymbols().size());
+    }
+
+    private static void assertSameSymbolsAsSequential(String recipe, int parallelism) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            CompileStatus status = new ParallelRecipeCompiler(executor, parallelism).compile(recipe);
+            Assert.assertTrue(status.isSuccess());
+
+            RecipeSymbol expected = new RecipeCompiler().compile(recipe).getSymbols();
+            Assert.assertEquals(expected.getVersion(), status.getSymbols().getVersion());
+            Assert.assertEquals(expected.getLoadableDirectives(), status.getSymbols().getLoadableDirectives());
+            Assert.assertEquals(describe(expected), describe(status.getSymbols()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String generate(int statements) {
+        StringBuilder sb = new StringBuilder("#pragma version 2.0;\n#pragma load-directives my-directive;\n");
+        for (int i = 0; i < statements; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("set-column :c").append(i).append(" exp:{ a + ").append(i).append(" };\n");
+                    break;
+                case 1:
+                    sb.append("if (a > ").append(i).append(") {\n  drop :a;\n} else {\n  keep :b;\n}\n");
+                    break;
+                case 2:
+                    sb.append("set-column :s").append(i).append(" 5MB 250ms 'x;y'; ");
+                    break;
+                default:
+                    sb.append("// comment\nfill-null-or-empty :f").append(i).append(" 'v';\n");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the position, source and tokens of every directive.
+     */
+    private static List<String> describe(RecipeSymbol symbol) {
+        List<String> directives = new ArrayList<>();
+        Iterator<TokenGroup> groups = symbol.iterator();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            StringBuilder sb = new StringBuilder(group.getSourceInfo().toString());
+            Iterator<Token> tokens = group.iterator();
+            while (tokens.hasNext()) {
+                Token token = tokens.next();
+                sb.append(' ').append(token.type()).append('=').append(token.toJson());
+            }
+            directives.add(sb.toString());
+        }
+        return directives;
+    }
+}
@@ -0,0 +1,117 @@
+package io.cdap.wrangler.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A run of complete top-level statements of a recipe, along with the line and column at which it
+ * starts in the recipe.
+ *
+ * <p>A recipe is split after every {@code ';'} that is not nested in braces or parentheses, so
+ * {@code if} blocks, {@code exp:{ ... }} conditions and macros are never cut. The statements of
+ * the grammar are independent of each other, so the chunks can be compiled separately and their
+ * token groups concatenated in order.</p>
+ */
+final class RecipeChunk {
+    private final String text;
+    private final int line;
+    private final int column;
+
+    RecipeChunk(String text, int line, int column) {
+        this.text = text;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Splits a recipe into chunks that each end with a top-level {@code ';'}. An {@code if} block or
+     * macro, which has no {@code ';'} of its own, goes with the statement that follows it, and so do
+     * whitespace and comments. Chunks without any statement are left out.
+     *
+     * @return the chunks in order, or {@code null} if the recipe has lexical errors or unbalanced
+     * braces or parentheses and must be compiled as a whole to report them
+     */
+    static List<RecipeChunk> split(String recipe) {
+        CharStream stream = CharStreams.fromString(recipe);
+        DirectivesLexer lexer = RecipeCompiler.newLexer(stream);
+        SyntaxErrorListener errorListener = new SyntaxErrorListener();
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorListener);
+
+        List<RecipeChunk> chunks = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        int line = 1;
+        int column = 0;
+        boolean empty = true;
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            empty = false;
+            switch (token.getType()) {
+                case DirectivesLexer.OBrace:
+                case DirectivesLexer.OParen:
+                    depth++;
+                    break;
+                case DirectivesLexer.CBrace:
+                case DirectivesLexer.CParen:
+                    if (--depth < 0) {
+                        return null;
+                    }
+                    break;
+                case DirectivesLexer.SColon:
+                    if (depth == 0) {
+                        int end = token.getStopIndex() + 1;
+                        chunks.add(new RecipeChunk(stream.getText(Interval.of(start, end - 1)), line, column));
+                        start = end;
+                        line = token.getLine();
+                        column = token.getCharPositionInLine() + 1;
+                        empty = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (errorListener.hasErrors() || depth != 0) {
+            return null;
+        }
+        if (!empty) {
+            chunks.add(new RecipeChunk(stream.getText(Interval.of(start, stream.size() - 1)), line, column));
+        }
+        return chunks;
+    }
+
+    /**
+     * Joins consecutive chunks of a recipe into one.
+     */
+    static RecipeChunk join(List<RecipeChunk> chunks) {
+        StringBuilder text = new StringBuilder();
+        for (RecipeChunk chunk : chunks) {
+            text.append(chunk.text);
+        }
+        RecipeChunk first = chunks.get(0);
+        return new RecipeChunk(text.toString(), first.line, first.column);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the line at which the chunk starts in the recipe, starting from 1.
+     */
+    int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the column at which the chunk starts in the recipe, starting from 0.
+     */
+    int getColumn() {
+        return column;
+    }
+}
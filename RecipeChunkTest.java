@@ -0,0 +1,65 @@
+package io.cdap.wrangler.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests for splitting recipes into {@link RecipeChunk}s.
+ */
+public class RecipeChunkTest {
+
+    @Test
+    public void testSplitAtTopLevelSemicolons() {
+        String recipe = "parse-as-csv :body ',';\n"
+                + "  set-column :a exp:{ a; b };  drop :b;\n"
+                + "if (a > 1) { drop :c; keep :d; }\n"
+                + "${macro} keep :e;\n"
+                + "// trailing comment\n";
+        List<RecipeChunk> chunks = RecipeChunk.split(recipe);
+
+        Assert.assertNotNull(chunks);
+        Assert.assertEquals(4, chunks.size());
+        assertChunk("parse-as-csv :body ',';", 1, 0, chunks.get(0));
+        assertChunk("\n  set-column :a exp:{ a; b };", 1, 23, chunks.get(1));
+        assertChunk("  drop :b;", 2, 29, chunks.get(2));
+        assertChunk("\nif (a > 1) { drop :c; keep :d; }\n${macro} keep :e;", 2, 39, chunks.get(3));
+    }
+
+    @Test
+    public void testSemicolonsInStringsAndComments() {
+        List<RecipeChunk> chunks = RecipeChunk.split("set-column :a 'x;y' /* ; */ -- ;\n;\n");
+        Assert.assertNotNull(chunks);
+        Assert.assertEquals(1, chunks.size());
+    }
+
+    @Test
+    public void testSemicolonsInForStatement() {
+        List<RecipeChunk> chunks = RecipeChunk.split("for (i = 0; i < 5; i++) { drop :a; } keep :b;");
+        Assert.assertNotNull(chunks);
+        Assert.assertEquals(1, chunks.size());
+    }
+
+    @Test
+    public void testStatementWithoutSemicolon() {
+        List<RecipeChunk> chunks = RecipeChunk.split("drop :a;\r\nkeep :b");
+        Assert.assertNotNull(chunks);
+        Assert.assertEquals(2, chunks.size());
+        assertChunk("\r\nkeep :b", 1, 8, chunks.get(1));
+    }
+
+    @Test
+    public void testUnsplittable() {
+        Assert.assertNull(RecipeChunk.split("if (a > 1) { drop :c;"));
+        Assert.assertNull(RecipeChunk.split("drop :c; }"));
+        Assert.assertNull(RecipeChunk.split("set-column :a 'unterminated;"));
+        Assert.assertEquals(0, RecipeChunk.split(" // nothing\n").size());
+    }
+
+    private static void assertChunk(String text, int line, int column, RecipeChunk chunk) {
+        Assert.assertEquals(text, chunk.getText());
+        Assert.assertEquals(line, chunk.getLine());
+        Assert.assertEquals(column, chunk.getColumn());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileException;
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.Compiler;
+import io.cdap.wrangler.api.RecipeSymbol;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.twill.filesystem.Location;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class <code>RecipeCompiler</code> compiles the recipe text into a <code>RecipeSymbol</code>
+ * by running it through the lexer and parser generated from <tt>Directives.g4</tt> and the
+ * <code>RecipeVisitor</code>.
+ *
+ * <p>Parsing is done in two stages. The parser first runs with SLL prediction and bails out on the
+ * first syntax error. SLL never falls back to full-context prediction and succeeds on all valid
+ * recipes; only when it fails is the recipe parsed again with full LL prediction and the regular
+ * error strategy, so that syntax errors are reported exactly as before.</p>
+ *
+ * <p>Recipes are tokenized by the generated lexer. Setting the system property
+ * <code>wrangler.recipe.lexer</code> to <code>fast</code> switches to the hand-written
+ * {@link DirectivesFastLexer}, which produces the same tokens without simulating the lexer ATN.</p>
+ *
+ * <p>The DFA caches built during prediction are static in the generated lexer and parser, and
+ * therefore shared by all compiler instances in a JVM. {@link #warmUp()} fills them with a
+ * representative recipe, so that the first real compilation does not pay for it.</p>
+ */
+public final class RecipeCompiler implements Compiler {
+  // Exercises the lexer and parser decisions of common directives, including the unit literals
+  // that overlap with numbers and identifiers (5m, 5mb, 5mo).
+  private static final String WARM_UP_RECIPE =
+    "#pragma version 2.0;\n"
+      + "#pragma load-directives my-directive, other-directive;\n"
+      + "// warm-up\n"
+      + "parse-as-csv :body ',' true;\n"
+      + "set-column :size 512;\n"
+      + "set-column :size 1.5KiB 2MB 10gb 1TB 5b;\n"
+      + "set-column :duration 5m 5mo 250ms 10us 15ns 1h30m 2.5s 1d 1w 1y;\n"
+      + "set-type :a, :b integer;\n"
+      + "set-column :c 1, 2, 3 true, false 'x', \"y\";\n"
+      + "fill-null-or-empty :d 1:10='low',11:20='high';\n"
+      + "set-column :e exp:{ a + b > 10 };\n"
+      + "!custom-directive :f prop:{ key='value', limit=10 };\n"
+      + "if (a > 5MB) { drop :g; } else { keep :h; }\n"
+      + "${macro}\n";
+
+  private static final boolean FAST_LEXER = "fast".equalsIgnoreCase(System.getProperty("wrangler.recipe.lexer"));
+
+  private static volatile boolean warmedUp;
+
+  /**
+   * Compiles a representative recipe once per JVM to populate the shared lexer and parser DFA
+   * caches. Calling it again has no effect.
+   */
+  public static void warmUp() {
+    if (warmedUp) {
+      return;
+    }
+    try {
+      new RecipeCompiler().compile(WARM_UP_RECIPE);
+    } catch (CompileException e) {
+      // The caches are filled either way
+    }
+    warmedUp = true;
+  }
+
+  @Override
+  public CompileStatus compile(String recipe) throws CompileException {
+    return compile(CharStreams.fromString(recipe));
+  }
+
+  @Override
+  public CompileStatus compile(Location location) throws CompileException {
+    try (InputStream is = location.getInputStream()) {
+      return compile(CharStreams.fromStream(is));
+    } catch (IOException e) {
+      throw new CompileException(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public CompileStatus compile(Path path) throws CompileException {
+    try (InputStream is = Files.newInputStream(path)) {
+      return compile(CharStreams.fromStream(is));
+    } catch (IOException e) {
+      throw new CompileException(e.getMessage(), e);
+    }
+  }
+
+  private CompileStatus compile(CharStream stream) throws CompileException {
+    try {
+      SyntaxErrorListener errorListener = new SyntaxErrorListener();
+      ParseTree tree = parse(stream, errorListener);
+
+      if (errorListener.hasErrors()) {
+        return new CompileStatus(true, errorListener.iterator());
+      }
+
+      RecipeVisitor visitor = new RecipeVisitor();
+      visitor.visit(tree);
+      RecipeSymbol symbol = visitor.getCompiledUnit();
+      return new CompileStatus(symbol);
+    } catch (StringIndexOutOfBoundsException e) {
+      throw new CompileException("Issue in compiling directives");
+    } catch (IllegalArgumentException e) {
+      // Values that parse but cannot be compiled, such as a negative sum of unit literals
+      throw new CompileException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Creates the lexer selected by the <code>wrangler.recipe.lexer</code> system property.
+   */
+  static DirectivesLexer newLexer(CharStream stream) {
+    return FAST_LEXER ? new DirectivesFastLexer(stream) : new DirectivesLexer(stream);
+  }
+
+  /**
+   * Parses the recipe, first with SLL prediction and then, if that fails, with full LL.
+   * Syntax errors of the lexer and of the LL stage are reported to <code>errorListener</code>.
+   */
+  static DirectivesParser.StatementsContext parse(CharStream stream, ANTLRErrorListener errorListener) {
+    DirectivesLexer lexer = newLexer(stream);
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(errorListener);
+    CommonTokenStream tokens = new CommonTokenStream(lexer);
+
+    DirectivesParser parser = new DirectivesParser(tokens);
+    parser.removeErrorListeners();
+    parser.setBuildParseTree(true);
+    parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    parser.setErrorHandler(new BailErrorStrategy());
+    try {
+      DirectivesParser.StatementsContext tree = parser.statements();
+      // Grammar actions may report errors without failing the parse
+      if (parser.getNumberOfSyntaxErrors() == 0) {
+        return tree;
+      }
+    } catch (ParseCancellationException e) {
+      // Either a real syntax error or a decision SLL cannot make; retry with full LL
+    }
+
+    // Rewinds the token stream, which has been filled already, so the lexer does not run again
+    parser.reset();
+    parser.addErrorListener(errorListener);
+    parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+    parser.setErrorHandler(new GrammarBasedParserErrorStrategy());
+    return parser.statements();
+  }
+}
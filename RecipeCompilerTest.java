@@ -0,0 +1,135 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileException;
+import io.cdap.wrangler.api.CompileStatus;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.TokenType;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the two-stage parsing of {@link RecipeCompiler}.
+ */
+public class RecipeCompilerTest {
+
+    private static final String LITERAL_RECIPE =
+            "set-column :a 5m 5mb 5mo 1.5KiB 1h30m;\n"
+            + "set-column :b 10 250ms 2GB;\n"
+            + "if (a > 5MB) { drop :c; } else { keep :d 1w; }";
+
+    @Test
+    public void testUnitLiterals() throws Exception {
+        CompileStatus status = new RecipeCompiler().compile("set-column :a 5m 5mb 5mo;");
+        Assert.assertTrue(status.isSuccess());
+
+        TokenGroup group = status.getSymbols().iterator().next();
+        Assert.assertEquals(5, group.size());
+        Assert.assertEquals(TokenType.DIRECTIVE_NAME, group.get(0).type());
+        Assert.assertEquals(TokenType.COLUMN_NAME, group.get(1).type());
+        Assert.assertEquals(TokenType.TIME_DURATION, group.get(2).type());
+        Assert.assertEquals(TokenType.BYTE_SIZE, group.get(3).type());
+        Assert.assertEquals(TokenType.TIME_DURATION, group.get(4).type());
+    }
+
+    @Test
+    public void testUnitArithmeticFolded() throws Exception {
+        CompileStatus status = new RecipeCompiler().compile("set-column :a 1GB + 512MB 2h - 15m 5MB 1KB+1KB - 1B;");
+        Assert.assertTrue(status.isSuccess());
+
+        TokenGroup group = status.getSymbols().iterator().next();
+        Assert.assertEquals(6, group.size());
+        ByteSize sum = (ByteSize) group.get(2);
+        Assert.assertEquals(1536L * 1024 * 1024, sum.getBytes());
+        Assert.assertEquals("1610612736B", sum.value());
+        Assert.assertEquals(sum.getBytes(), new ByteSize(sum.value()).getBytes());
+        TimeDuration difference = (TimeDuration) group.get(3);
+        Assert.assertEquals(105L * 60 * 1000000000L, difference.getNanoseconds());
+        Assert.assertEquals(difference.getNanoseconds(), new TimeDuration(difference.value()).getNanoseconds());
+        Assert.assertEquals(5L * 1024 * 1024, ((ByteSize) group.get(4)).getBytes());
+        Assert.assertEquals(2047L, ((ByteSize) group.get(5)).getBytes());
+    }
+
+    @Test
+    public void testUnitArithmeticOverflow() {
+        assertCompileError("set-column :a 4EB + 4EB;", "Value out of range: 4EB + 4EB");
+    }
+
+    @Test
+    public void testUnitArithmeticNegative() {
+        assertCompileError("set-column :a 1MB - 1GB;", "Negative value: 1MB - 1GB");
+        assertCompileError("set-column :a 15m - 2h;", "Negative value: 15m - 2h");
+    }
+
+    @Test
+    public void testUnitLiteralsInConditions() throws Exception {
+        CompileStatus status = new RecipeCompiler().compile(
+                "filter-row-if-true exp:{ size > 10MB && t < nanos('1h30m') || { x == 1.5h && y > bytes(\"1KB\") } };");
+        Assert.assertTrue(status.isSuccess());
+
+        TokenGroup group = status.getSymbols().iterator().next();
+        Assert.assertEquals(TokenType.EXPRESSION, group.get(1).type());
+        Assert.assertEquals("size > 10485760L && t < 5400000000000L || {x==5400000000000L&&y>1024L} ",
+                            group.get(1).value());
+    }
+
+    @Test
+    public void testJexlNumbersInConditions() throws Exception {
+        CompileStatus status = new RecipeCompiler().compile(
+                "filter-row-if-true exp:{ x == 2d && y > 24h && z < 512B && d < nanos('2d') && b < bytes('512B') };");
+        Assert.assertTrue(status.isSuccess());
+
+        TokenGroup group = status.getSymbols().iterator().next();
+        Assert.assertEquals("x == 2d && y > 24h && z < 512B && d < 172800000000000L && b < 512L ",
+                            group.get(1).value());
+    }
+
+    @Test
+    public void testInvalidUnitFunctionInCondition() {
+        assertCompileError("filter-row-if-true exp:{ x < bytes('10XB') };", "Unsupported byte size unit: 10XB");
+        assertCompileError("filter-row-if-true exp:{ x < nanos('soon') };", "Invalid time duration format: soon");
+    }
+
+    @Test
+    public void testTwoStageMatchesFullLL() {
+        String twoStage = RecipeCompiler.parse(CharStreams.fromString(LITERAL_RECIPE), new BaseErrorListener())
+                .toStringTree();
+
+        Assert.assertEquals(parseFullLL(LITERAL_RECIPE).toStringTree(), twoStage);
+    }
+
+    private static void assertCompileError(String recipe, String message) {
+        try {
+            new RecipeCompiler().compile(recipe);
+            Assert.fail("Expected " + recipe + " not to compile");
+        } catch (CompileException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static DirectivesParser.StatementsContext parseFullLL(String recipe) {
+        DirectivesParser parser = new DirectivesParser(
+                new CommonTokenStream(new DirectivesLexer(CharStreams.fromString(recipe))));
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return parser.statements();
+    }
+
+    @Test
+    public void testSyntaxErrorsStillReported() throws Exception {
+        CompileStatus status = new RecipeCompiler().compile("set-column :a 'unterminated;");
+        Assert.assertFalse(status.isSuccess());
+        Assert.assertTrue(status.getErrors().hasNext());
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        RecipeCompiler.warmUp();
+        RecipeCompiler.warmUp();
+        Assert.assertTrue(new RecipeCompiler().compile(LITERAL_RECIPE).isSuccess());
+    }
+}
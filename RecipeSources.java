@@ -0,0 +1,47 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.CompileException;
+import org.apache.twill.filesystem.Location;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads recipe text for the compilers that work on a {@code String} rather than a character stream.
+ */
+final class RecipeSources {
+    private RecipeSources() {
+    }
+
+    /**
+     * Reads the recipe at {@code location} as UTF-8.
+     */
+    static String read(Location location) throws CompileException {
+        try (InputStream is = location.getInputStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new CompileException(String.format("Unable to read recipe from '%s'", location), e);
+        }
+    }
+
+    /**
+     * Reads the recipe at {@code path} as UTF-8.
+     */
+    static String read(Path path) throws CompileException {
+        try {
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new CompileException(String.format("Unable to read recipe from '%s'", path), e);
+        }
+    }
+}
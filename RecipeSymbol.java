@@ -0,0 +1,205 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.cdap.wrangler.api.annotations.PublicEvolving;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.Token;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * This class <code>RecipeSymbol</code> represents the compiled form of a recipe: the version and
+ * the loadable directives declared by pragmas, and one <code>TokenGroup</code> per directive.
+ */
+@PublicEvolving
+public final class RecipeSymbol {
+  private String version;
+  private final Set<String> loadableDirectives;
+  private final List<TokenGroup> tokens;
+
+  private RecipeSymbol(String version, Set<String> loadableDirectives, List<TokenGroup> tokens) {
+    this.version = version;
+    this.loadableDirectives = loadableDirectives;
+    this.tokens = tokens;
+  }
+
+  /**
+   * @return Version of the grammar specified in the recipe, or null if none was specified.
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * @return Set of directives to be loaded dynamically, as specified by <code>#pragma load-directives</code>.
+   */
+  public Set<String> getLoadableDirectives() {
+    return loadableDirectives;
+  }
+
+  /**
+   * @return Number of directives in the recipe.
+   */
+  public int size() {
+    return tokens.size();
+  }
+
+  /**
+   * @return Iterator over the <code>TokenGroup</code> of every directive, in recipe order.
+   */
+  public Iterator<TokenGroup> iterator() {
+    return tokens.iterator();
+  }
+
+  /**
+   * @return <code>JsonElement</code> representation of the compiled recipe.
+   */
+  public JsonElement toJson() {
+    JsonObject output = new JsonObject();
+    output.addProperty("class", this.getClass().getSimpleName());
+    output.addProperty("count", tokens.size());
+    JsonArray array = new JsonArray();
+    Iterator<TokenGroup> iterator = tokens.iterator();
+    while (iterator.hasNext()) {
+      JsonArray darray = new JsonArray();
+      Iterator<Token> it = iterator.next().iterator();
+      while (it.hasNext()) {
+        Token tok = it.next();
+        JsonObject object = new JsonObject();
+        object.addProperty("token", tok.type().toString());
+        object.addProperty("value", tok.value().toString());
+        darray.add(object);
+      }
+      array.add(darray);
+    }
+    output.add("value", array);
+    return output;
+  }
+
+  /**
+   * @return A new instance of <code>RecipeSymbol.Builder</code>.
+   */
+  public static RecipeSymbol.Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * This class <code>Builder</code> builds a <code>RecipeSymbol</code> one directive at a time.
+   *
+   * <p>The builder pools the <code>ByteSize</code> and <code>TimeDuration</code> tokens of a recipe:
+   * every occurrence of the same literal, e.g. <code>10MB</code> used by hundreds of directives of a
+   * generated recipe, is represented by one shared token. The tokens are immutable, so sharing them
+   * is safe, and it saves both the time to parse a literal again and the memory a compiled recipe
+   * retains.</p>
+   */
+  public static final class Builder {
+    private final Set<String> loadableDirectives = new TreeSet<>();
+    private final Map<String, ByteSize> byteSizes = new HashMap<>();
+    private final Map<String, TimeDuration> timeDurations = new HashMap<>();
+    private TokenGroup group = null;
+    private List<TokenGroup> groups = new ArrayList<>();
+    private String version = null;
+
+    /**
+     * Starts the <code>TokenGroup</code> of the next directive.
+     */
+    public void createTokenGroup(SourceInfo info) {
+      if (group != null) {
+        groups.add(group);
+      }
+      this.group = new TokenGroup(info);
+    }
+
+    /**
+     * Adds a token to the current <code>TokenGroup</code>. A <code>ByteSize</code> or
+     * <code>TimeDuration</code> equal to one added before is replaced by the pooled token. Byte sizes
+     * must also have the same unit system, which their KB, MB and GB getters depend on.
+     */
+    public void addToken(Token token) {
+      if (token instanceof ByteSize) {
+        ByteSize size = (ByteSize) token;
+        ByteSize pooled = byteSizes.putIfAbsent(size.value(), size);
+        if (pooled != null && pooled.getBytes() == size.getBytes()
+          && pooled.getUnitSystem() == size.getUnitSystem()) {
+          token = pooled;
+        }
+      } else if (token instanceof TimeDuration) {
+        TimeDuration duration = (TimeDuration) token;
+        TimeDuration pooled = timeDurations.putIfAbsent(duration.value(), duration);
+        if (pooled != null && pooled.getNanoseconds() == duration.getNanoseconds()) {
+          token = pooled;
+        }
+      }
+      group.add(token);
+    }
+
+    /**
+     * Returns the <code>ByteSize</code> token for a literal, parsing it only on its first use in the recipe.
+     */
+    public ByteSize byteSize(String literal) {
+      ByteSize size = byteSizes.get(literal);
+      if (size == null) {
+        size = new ByteSize(literal);
+        byteSizes.put(literal, size);
+      } else if (size.getUnitSystem() != ByteSize.UnitSystem.IEC) {
+        // Literals of a recipe are IEC; the pooled token was added with another unit system
+        size = new ByteSize(literal);
+      }
+      return size;
+    }
+
+    /**
+     * Returns the <code>TimeDuration</code> token for a literal, parsing it only on its first use in the
+     * recipe.
+     */
+    public TimeDuration timeDuration(String literal) {
+      TimeDuration duration = timeDurations.get(literal);
+      if (duration == null) {
+        duration = new TimeDuration(literal);
+        timeDurations.put(literal, duration);
+      }
+      return duration;
+    }
+
+    public void addVersion(String version) {
+      this.version = version;
+    }
+
+    public void addLoadableDirective(String directive) {
+      loadableDirectives.add(directive);
+    }
+
+    public RecipeSymbol build() {
+      if (group != null) {
+        groups.add(group);
+        group = null;
+      }
+      return new RecipeSymbol(version, loadableDirectives, groups);
+    }
+  }
+}
@@ -0,0 +1,416 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.LazyNumber;
+import io.cdap.wrangler.api.RecipeSymbol;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.Triplet;
+import io.cdap.wrangler.api.parser.Bool;
+import io.cdap.wrangler.api.parser.BoolList;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.ColumnNameList;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.Expression;
+import io.cdap.wrangler.api.parser.Identifier;
+import io.cdap.wrangler.api.parser.Numeric;
+import io.cdap.wrangler.api.parser.NumericList;
+import io.cdap.wrangler.api.parser.Properties;
+import io.cdap.wrangler.api.parser.Ranges;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TextList;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.Token;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes a compact binary form of a compiled {@link RecipeSymbol}, so that workers can
+ * load a recipe compiled ahead of time without running the lexer, the parser or the
+ * {@link RecipeVisitor}.
+ *
+ * <p>The form starts with a magic number and a format version, followed by the recipe version, the
+ * loadable directives and one entry per {@link TokenGroup} with its {@link SourceInfo} and tokens.
+ * Each token is tagged with a stable code for its type. Byte sizes and time durations are stored
+ * as their resolved number of bytes or nanoseconds, a unit code and the literal text, so reading
+ * them back does not parse the literal again. The unit code of a byte size records whether it was
+ * resolved with IEC or SI multipliers, which decides what its kilobyte getters divide by.</p>
+ */
+public final class RecipeSymbolCodec {
+    private static final int MAGIC = 0x57524350;
+    private static final byte FORMAT_VERSION = 2;
+
+    // Buffers and lists read from the input start at most this large and grow as data arrives, so
+    // a corrupted length ends in an EOFException instead of a huge allocation
+    private static final int MAX_INITIAL_CAPACITY = 8192;
+
+    // Stable type codes, independent of the order of TokenType
+    private static final byte DIRECTIVE_NAME = 1;
+    private static final byte COLUMN_NAME = 2;
+    private static final byte TEXT = 3;
+    private static final byte NUMERIC = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte COLUMN_NAME_LIST = 6;
+    private static final byte TEXT_LIST = 7;
+    private static final byte NUMERIC_LIST = 8;
+    private static final byte BOOLEAN_LIST = 9;
+    private static final byte EXPRESSION = 10;
+    private static final byte PROPERTIES = 11;
+    private static final byte RANGES = 12;
+    private static final byte IDENTIFIER = 13;
+    private static final byte BYTE_SIZE = 14;
+    private static final byte TIME_DURATION = 15;
+
+    // Stable unit codes of the long stored for a byte size or a time duration
+    private static final byte UNIT_IEC_BYTES = 1;
+    private static final byte UNIT_SI_BYTES = 2;
+    private static final byte UNIT_NANOSECONDS = 3;
+
+    private RecipeSymbolCodec() {
+    }
+
+    /**
+     * Returns the binary form of {@code symbol}.
+     */
+    public static byte[] toBytes(RecipeSymbol symbol) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(symbol, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a recipe from its binary form.
+     *
+     * @throws IOException if {@code bytes} is not a compiled recipe of a supported format version
+     */
+    public static RecipeSymbol fromBytes(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Writes the binary form of {@code symbol} to {@code out}.
+     */
+    public static void write(RecipeSymbol symbol, DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        writeNullableString(out, symbol.getVersion());
+        out.writeInt(symbol.getLoadableDirectives().size());
+        for (String directive : symbol.getLoadableDirectives()) {
+            writeString(out, directive);
+        }
+
+        out.writeInt(symbol.size());
+        Iterator<TokenGroup> groups = symbol.iterator();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            SourceInfo info = group.getSourceInfo();
+            out.writeBoolean(info != null);
+            if (info != null) {
+                out.writeInt(info.getLineNumber());
+                out.writeInt(info.getColumnNumber());
+                writeString(out, info.getSource());
+            }
+            out.writeInt(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                writeToken(out, group.get(i));
+            }
+        }
+    }
+
+    /**
+     * Reads a recipe written by {@link #write(RecipeSymbol, DataOutput)}.
+     *
+     * @throws IOException if the input is not a compiled recipe of a supported format version
+     */
+    public static RecipeSymbol read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Input is not a compiled recipe");
+        }
+        byte formatVersion = in.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported compiled recipe format version %d", formatVersion));
+        }
+
+        RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+        String version = readNullableString(in);
+        if (version != null) {
+            builder.addVersion(version);
+        }
+        int directives = readCount(in);
+        for (int i = 0; i < directives; i++) {
+            builder.addLoadableDirective(readString(in));
+        }
+
+        int groups = readCount(in);
+        for (int i = 0; i < groups; i++) {
+            SourceInfo info = null;
+            if (in.readBoolean()) {
+                int lineno = in.readInt();
+                int colno = in.readInt();
+                info = new SourceInfo(lineno, colno, readString(in));
+            }
+            builder.createTokenGroup(info);
+            int tokens = readCount(in);
+            for (int j = 0; j < tokens; j++) {
+                builder.addToken(readToken(in));
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeToken(DataOutput out, Token token) throws IOException {
+        switch (token.type()) {
+            case DIRECTIVE_NAME:
+                out.writeByte(DIRECTIVE_NAME);
+                writeString(out, ((DirectiveName) token).value());
+                break;
+            case COLUMN_NAME:
+                out.writeByte(COLUMN_NAME);
+                writeString(out, ((ColumnName) token).value());
+                break;
+            case TEXT:
+                out.writeByte(TEXT);
+                writeString(out, ((Text) token).value());
+                break;
+            case NUMERIC:
+                out.writeByte(NUMERIC);
+                writeString(out, ((Numeric) token).value().toString());
+                break;
+            case BOOLEAN:
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(((Bool) token).value());
+                break;
+            case COLUMN_NAME_LIST:
+                out.writeByte(COLUMN_NAME_LIST);
+                writeStrings(out, ((ColumnNameList) token).value());
+                break;
+            case TEXT_LIST:
+                out.writeByte(TEXT_LIST);
+                writeStrings(out, ((TextList) token).value());
+                break;
+            case NUMERIC_LIST: {
+                out.writeByte(NUMERIC_LIST);
+                List<LazyNumber> numbers = ((NumericList) token).value();
+                out.writeInt(numbers.size());
+                for (LazyNumber number : numbers) {
+                    writeString(out, number.toString());
+                }
+                break;
+            }
+            case BOOLEAN_LIST: {
+                out.writeByte(BOOLEAN_LIST);
+                List<Boolean> booleans = ((BoolList) token).value();
+                out.writeInt(booleans.size());
+                for (Boolean bool : booleans) {
+                    out.writeBoolean(bool);
+                }
+                break;
+            }
+            case EXPRESSION:
+                out.writeByte(EXPRESSION);
+                writeString(out, ((Expression) token).value());
+                break;
+            case PROPERTIES: {
+                out.writeByte(PROPERTIES);
+                Map<String, Token> properties = ((Properties) token).value();
+                out.writeInt(properties.size());
+                for (Map.Entry<String, Token> property : properties.entrySet()) {
+                    writeString(out, property.getKey());
+                    writeToken(out, property.getValue());
+                }
+                break;
+            }
+            case RANGES: {
+                out.writeByte(RANGES);
+                List<Triplet<Numeric, Numeric, String>> ranges = ((Ranges) token).value();
+                out.writeInt(ranges.size());
+                for (Triplet<Numeric, Numeric, String> range : ranges) {
+                    writeString(out, range.getFirst().value().toString());
+                    writeString(out, range.getSecond().value().toString());
+                    writeString(out, range.getThird());
+                }
+                break;
+            }
+            case IDENTIFIER:
+                out.writeByte(IDENTIFIER);
+                writeString(out, ((Identifier) token).value());
+                break;
+            case BYTE_SIZE: {
+                out.writeByte(BYTE_SIZE);
+                ByteSize size = (ByteSize) token;
+                out.writeLong(size.getBytes());
+                out.writeByte(size.getUnitSystem() == ByteSize.UnitSystem.SI ? UNIT_SI_BYTES : UNIT_IEC_BYTES);
+                writeString(out, size.value());
+                break;
+            }
+            case TIME_DURATION: {
+                out.writeByte(TIME_DURATION);
+                TimeDuration duration = (TimeDuration) token;
+                out.writeLong(duration.getNanoseconds());
+                out.writeByte(UNIT_NANOSECONDS);
+                writeString(out, duration.value());
+                break;
+            }
+            default:
+                throw new IOException(String.format("Token type '%s' cannot be serialized", token.type()));
+        }
+    }
+
+    private static Token readToken(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case DIRECTIVE_NAME:
+                return new DirectiveName(readString(in));
+            case COLUMN_NAME:
+                return new ColumnName(readString(in));
+            case TEXT:
+                return new Text(readString(in));
+            case NUMERIC:
+                return new Numeric(new LazyNumber(readString(in)));
+            case BOOLEAN:
+                return new Bool(in.readBoolean());
+            case COLUMN_NAME_LIST:
+                return new ColumnNameList(readStrings(in));
+            case TEXT_LIST:
+                return new TextList(readStrings(in));
+            case NUMERIC_LIST: {
+                int size = readCount(in);
+                List<LazyNumber> numbers = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+                for (int i = 0; i < size; i++) {
+                    numbers.add(new LazyNumber(readString(in)));
+                }
+                return new NumericList(numbers);
+            }
+            case BOOLEAN_LIST: {
+                int size = readCount(in);
+                List<Boolean> booleans = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+                for (int i = 0; i < size; i++) {
+                    booleans.add(in.readBoolean());
+                }
+                return new BoolList(booleans);
+            }
+            case EXPRESSION:
+                return new Expression(readString(in));
+            case PROPERTIES: {
+                int size = readCount(in);
+                Map<String, Token> properties = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in);
+                    properties.put(key, readToken(in));
+                }
+                return new Properties(properties);
+            }
+            case RANGES: {
+                int size = readCount(in);
+                List<Triplet<Numeric, Numeric, String>> ranges =
+                        new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+                for (int i = 0; i < size; i++) {
+                    Numeric start = new Numeric(new LazyNumber(readString(in)));
+                    Numeric end = new Numeric(new LazyNumber(readString(in)));
+                    ranges.add(new Triplet<>(start, end, readString(in)));
+                }
+                return new Ranges(ranges);
+            }
+            case IDENTIFIER:
+                return new Identifier(readString(in));
+            case BYTE_SIZE: {
+                long bytes = in.readLong();
+                byte unit = in.readByte();
+                ByteSize.UnitSystem unitSystem;
+                if (unit == UNIT_IEC_BYTES) {
+                    unitSystem = ByteSize.UnitSystem.IEC;
+                } else if (unit == UNIT_SI_BYTES) {
+                    unitSystem = ByteSize.UnitSystem.SI;
+                } else {
+                    throw new IOException(String.format("Unknown byte size unit code %d in compiled recipe", unit));
+                }
+                return new ByteSize(readString(in), bytes, unitSystem);
+            }
+            case TIME_DURATION: {
+                long nanoseconds = in.readLong();
+                byte unit = in.readByte();
+                if (unit != UNIT_NANOSECONDS) {
+                    throw new IOException(String.format("Unknown time duration unit code %d in compiled recipe", unit));
+                }
+                return new TimeDuration(readString(in), nanoseconds);
+            }
+            default:
+                throw new IOException(String.format("Unknown token type code %d in compiled recipe", type));
+        }
+    }
+
+    private static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInput in) throws IOException {
+        int size = readCount(in);
+        List<String> values = new ArrayList<>(Math.min(size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeNullableString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInput in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string. Unlike {@link DataOutput#writeUTF(String)} this is
+     * not limited to 64KB, which a directive's source text may exceed.
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = readCount(in);
+        byte[] bytes = new byte[Math.min(length, MAX_INITIAL_CAPACITY)];
+        in.readFully(bytes);
+        while (bytes.length < length) {
+            int filled = bytes.length;
+            bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * filled));
+            in.readFully(bytes, filled, bytes.length - filled);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a length or an element count, which must not be negative.
+     */
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException(String.format("Invalid length %d in compiled recipe", count));
+        }
+        return count;
+    }
+}
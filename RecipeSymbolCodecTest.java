@@ -0,0 +1,155 @@
+package io.cdap.wrangler.parser;
+
+import io.cdap.wrangler.api.LazyNumber;
+import io.cdap.wrangler.api.RecipeSymbol;
+import io.cdap.wrangler.api.SourceInfo;
+import io.cdap.wrangler.api.TokenGroup;
+import io.cdap.wrangler.api.Triplet;
+import io.cdap.wrangler.api.parser.Bool;
+import io.cdap.wrangler.api.parser.BoolList;
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.ColumnName;
+import io.cdap.wrangler.api.parser.ColumnNameList;
+import io.cdap.wrangler.api.parser.DirectiveName;
+import io.cdap.wrangler.api.parser.Expression;
+import io.cdap.wrangler.api.parser.Identifier;
+import io.cdap.wrangler.api.parser.Numeric;
+import io.cdap.wrangler.api.parser.NumericList;
+import io.cdap.wrangler.api.parser.Properties;
+import io.cdap.wrangler.api.parser.Ranges;
+import io.cdap.wrangler.api.parser.Text;
+import io.cdap.wrangler.api.parser.TextList;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import io.cdap.wrangler.api.parser.Token;
+import io.cdap.wrangler.api.parser.TokenType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Tests for {@link RecipeSymbolCodec}.
+ */
+public class RecipeSymbolCodecTest {
+
+    @Test
+    public void testCompiledRecipeRoundTrip() throws Exception {
+        String recipe = "#pragma load-directives my-directive;\nset-column width 1.5MB;\nset-column timeout 1h30m;";
+        RecipeSymbol symbol = new RecipeCompiler().compile(recipe).getSymbols();
+        assertSameSymbol(symbol, RecipeSymbolCodec.fromBytes(RecipeSymbolCodec.toBytes(symbol)));
+    }
+
+    @Test
+    public void testAllTokenTypes() throws Exception {
+        Map<String, Token> properties = new HashMap<>();
+        properties.put("limit", new ByteSize("512KiB"));
+        properties.put("name", new Text("value"));
+
+        RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+        builder.addVersion("2.0");
+        builder.createTokenGroup(new SourceInfo(3, 4, "directive :col ..."));
+        builder.addToken(new DirectiveName("directive"));
+        builder.addToken(new ColumnName("col"));
+        builder.addToken(new Text("text"));
+        builder.addToken(new Numeric(new LazyNumber("1.25")));
+        builder.addToken(new Bool(true));
+        builder.addToken(new ColumnNameList(Arrays.asList("a", "b")));
+        builder.addToken(new TextList(Arrays.asList("x", "y")));
+        builder.addToken(new NumericList(Arrays.asList(new LazyNumber("1"), new LazyNumber("2"))));
+        builder.addToken(new BoolList(Arrays.asList(true, false)));
+        builder.addToken(new Expression("a > 1 "));
+        builder.addToken(new Properties(properties));
+        builder.addToken(new Ranges(Collections.singletonList(
+                new Triplet<>(new Numeric(new LazyNumber("1")), new Numeric(new LazyNumber("5")), "low"))));
+        builder.addToken(new Identifier("id"));
+        builder.addToken(new ByteSize("2MB"));
+        builder.addToken(new TimeDuration("250us"));
+        RecipeSymbol symbol = builder.build();
+
+        RecipeSymbol copy = RecipeSymbolCodec.fromBytes(RecipeSymbolCodec.toBytes(symbol));
+        assertSameSymbol(symbol, copy);
+
+        TokenGroup group = copy.iterator().next();
+        Assert.assertEquals(2 * 1024 * 1024L, ((ByteSize) group.get(13)).getBytes());
+        Assert.assertEquals(250000L, ((TimeDuration) group.get(14)).getNanoseconds());
+        Map<String, Token> props = ((Properties) group.get(10)).value();
+        Assert.assertEquals(512 * 1024L, ((ByteSize) props.get("limit")).getBytes());
+        Triplet<Numeric, Numeric, String> range = ((Ranges) group.get(11)).value().get(0);
+        Assert.assertEquals("5", range.getSecond().value().toString());
+        Assert.assertEquals("low", range.getThird());
+    }
+
+    @Test
+    public void testByteSizeUnitSystem() throws Exception {
+        RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+        builder.createTokenGroup(null);
+        builder.addToken(new ByteSize("10KB", ByteSize.UnitSystem.SI));
+        builder.addToken(new ByteSize("10KB"));
+        TokenGroup group = RecipeSymbolCodec.fromBytes(RecipeSymbolCodec.toBytes(builder.build())).iterator().next();
+
+        ByteSize si = (ByteSize) group.get(0);
+        Assert.assertEquals(ByteSize.UnitSystem.SI, si.getUnitSystem());
+        Assert.assertEquals(10000L, si.getBytes());
+        Assert.assertEquals(10.0, si.getKilobytes(), 0.0);
+        ByteSize iec = (ByteSize) group.get(1);
+        Assert.assertEquals(ByteSize.UnitSystem.IEC, iec.getUnitSystem());
+        Assert.assertEquals(10.0, iec.getKilobytes(), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherInput() throws Exception {
+        RecipeSymbolCodec.fromBytes(new byte[] { 0, 0, 0, 0, 1 });
+    }
+
+    @Test
+    public void testCorruptedLengths() throws Exception {
+        RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+        builder.createTokenGroup(new SourceInfo(1, 0, "set-column :a 'text'"));
+        builder.addToken(new Text("text"));
+        byte[] bytes = RecipeSymbolCodec.toBytes(builder.build());
+
+        // The length prefix of the source text follows the header, the counts and the position
+        int offset = 4 + 1 + 1 + 4 + 4 + 1 + 4 + 4;
+        for (int length : new int[] { -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1 << 24 }) {
+            byte[] corrupted = bytes.clone();
+            ByteBuffer.wrap(corrupted).putInt(offset, length);
+            try {
+                RecipeSymbolCodec.fromBytes(corrupted);
+                Assert.fail("Expected an IOException for length " + length);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void assertSameSymbol(RecipeSymbol expected, RecipeSymbol actual) {
+        Assert.assertEquals(expected.getVersion(), actual.getVersion());
+        Assert.assertEquals(expected.getLoadableDirectives(), actual.getLoadableDirectives());
+        Assert.assertEquals(expected.size(), actual.size());
+        Iterator<TokenGroup> expectedGroups = expected.iterator();
+        Iterator<TokenGroup> actualGroups = actual.iterator();
+        while (expectedGroups.hasNext()) {
+            TokenGroup expectedGroup = expectedGroups.next();
+            TokenGroup actualGroup = actualGroups.next();
+            Assert.assertEquals(expectedGroup.getSourceInfo().toString(), actualGroup.getSourceInfo().toString());
+            Assert.assertEquals(expectedGroup.size(), actualGroup.size());
+            for (int i = 0; i < expectedGroup.size(); i++) {
+                Token expectedToken = expectedGroup.get(i);
+                Token actualToken = actualGroup.get(i);
+                Assert.assertEquals(expectedToken.type(), actualToken.type());
+                // Tokens holding LazyNumbers or nested tokens have no value equality
+                TokenType type = expectedToken.type();
+                if (type != TokenType.PROPERTIES && type != TokenType.RANGES
+                        && type != TokenType.NUMERIC && type != TokenType.NUMERIC_LIST) {
+                    Assert.assertEquals(expectedToken.value(), actualToken.value());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.cdap.wrangler.api;
+
+import io.cdap.wrangler.api.parser.ByteSize;
+import io.cdap.wrangler.api.parser.TimeDuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+/**
+ * Tests for the literal pool of {@link RecipeSymbol.Builder}.
+ */
+public class RecipeSymbolTest {
+
+    @Test
+    public void testLiteralsShared() {
+        RecipeSymbol.Builder builder = RecipeSymbol.builder();
+        for (int i = 0; i < 3; i++) {
+            builder.createTokenGroup(new SourceInfo(i + 1, 0, "set-column :a 10MB 30s"));
+            builder.addToken(builder.byteSize("10MB"));
+            builder.addToken(builder.timeDuration("30s"));
+        }
+        RecipeSymbol symbol = builder.build();
+
+        Iterator<TokenGroup> groups = symbol.iterator();
+        TokenGroup first = groups.next();
+        while (groups.hasNext()) {
+            TokenGroup group = groups.next();
+            Assert.assertSame(first.get(0), group.get(0));
+            Assert.assertSame(first.get(1), group.get(1));
+        }
+        Assert.assertEquals(10L * 1024 * 1024, ((ByteSize) first.get(0)).getBytes());
+        Assert.assertEquals(30000L, ((TimeDuration) first.get(1)).getMilliseconds());
+    }
+
+    @Test
+    public void testAddedTokensPooled() {
+        RecipeSymbol.Builder builder = RecipeSymbol.builder();
+        builder.createTokenGroup(new SourceInfo(1, 0, "a"));
+        builder.addToken(new ByteSize("1KB"));
+        builder.addToken(new ByteSize("1KB"));
+        builder.addToken(new ByteSize("1KB", ByteSize.UnitSystem.SI));
+        builder.addToken(new TimeDuration("5m"));
+        builder.addToken(builder.timeDuration("5m"));
+        TokenGroup group = builder.build().iterator().next();
+
+        Assert.assertSame(group.get(0), group.get(1));
+        // Same text, different value
+        Assert.assertNotSame(group.get(0), group.get(2));
+        Assert.assertEquals(1000L, ((ByteSize) group.get(2)).getBytes());
+        Assert.assertSame(group.get(3), group.get(4));
+    }
+
+    @Test
+    public void testPooledByUnitSystem() {
+        RecipeSymbol.Builder builder = RecipeSymbol.builder();
+        builder.createTokenGroup(new SourceInfo(1, 0, "a"));
+        builder.addToken(new ByteSize("512B", ByteSize.UnitSystem.SI));
+        builder.addToken(new ByteSize("512B"));
+        builder.addToken(builder.byteSize("512B"));
+        TokenGroup group = builder.build().iterator().next();
+
+        // Same text and bytes, but KB differ between the unit systems
+        Assert.assertNotSame(group.get(0), group.get(1));
+        Assert.assertEquals(0.512, ((ByteSize) group.get(0)).getKilobytes(), 1e-9);
+        Assert.assertEquals(0.5, ((ByteSize) group.get(1)).getKilobytes(), 1e-9);
+        Assert.assertEquals(ByteSize.UnitSystem.IEC, ((ByteSize) group.get(2)).getUnitSystem());
+    }
+
+    @Test
+    public void testVersionAndDirectives() {
+        RecipeSymbol.Builder builder = RecipeSymbol.builder();
+        builder.addVersion("2.0");
+        builder.addLoadableDirective("b");
+        builder.addLoadableDirective("a");
+        RecipeSymbol symbol = builder.build();
+
+        Assert.assertEquals("2.0", symbol.getVersion());
+        Assert.assertEquals("[a, b]", symbol.getLoadableDirectives().toString());
+        Assert.assertEquals(0, symbol.size());
+    }
+}
@@ -36,8 +36,8 @@ import io.cdap.wrangler.api.parser.Text;
 import io.cdap.wrangler.api.parser.TextList;
 import io.cdap.wrangler.api.parser.TimeDuration;
 import io.cdap.wrangler.api.parser.Token;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToLongFunction;
 
 /**
  * This class <code>RecipeVisitor</code> implements the visitor pattern
@@ -67,6 +68,7 @@ import java.util.Map;
  */
 public final class RecipeVisitor extends DirectivesBaseVisitor<RecipeSymbol.Builder> {
   private RecipeSymbol.Builder builder = new RecipeSymbol.Builder();
+  private CharStreamSequence recipe;
 
   /**
    * Returns a <code>RecipeSymbol</code> for the recipe being parsed. This
@@ -237,11 +239,19 @@ public final class RecipeVisitor extends DirectivesBaseVisitor<RecipeSymbol.Buil
    * represented as
    * a number followed by a byte unit (e.g., "10KB", "5MB"). This visitor method
    * extracts
-   * the byte size value into a token type <code>ByteSize</code>.
+   * the byte size value into a token type <code>ByteSize</code>. A sum or difference
+   * of byte sizes (e.g., "1GB + 512MB") is folded into a single <code>ByteSize</code>
+   * whose value is the total in bytes (e.g., "1610612736B").
    */
   @Override
   public RecipeSymbol.Builder visitByteSize(DirectivesParser.ByteSizeContext ctx) {
-    builder.addToken(new ByteSize(ctx.BYTE_SIZE().getText()));
+    List<TerminalNode> sizes = ctx.BYTE_SIZE();
+    if (sizes.size() == 1) {
+      builder.addToken(builder.byteSize(sizes.get(0).getText()));
+    } else {
+      long bytes = fold(ctx, ByteSize::parseBytes);
+      builder.addToken(new ByteSize(bytes + "B", bytes));
+    }
     return builder;
   }
 
@@ -250,11 +260,19 @@ public final class RecipeVisitor extends DirectivesBaseVisitor<RecipeSymbol.Buil
    * represented as
    * a number followed by a time unit (e.g., "5s", "10m", "2h"). This visitor
    * method extracts
-   * the time duration value into a token type <code>TimeDuration</code>.
+   * the time duration value into a token type <code>TimeDuration</code>. A sum or
+   * difference of durations (e.g., "2h - 15m") is folded into a single <code>TimeDuration</code>
+   * whose value is the total in nanoseconds (e.g., "6300000000000ns").
    */
   @Override
   public RecipeSymbol.Builder visitTimeDuration(DirectivesParser.TimeDurationContext ctx) {
-    builder.addToken(new TimeDuration(ctx.TIME_DURATION().getText()));
+    List<TerminalNode> durations = ctx.TIME_DURATION();
+    if (durations.size() == 1) {
+      builder.addToken(builder.timeDuration(durations.get(0).getText()));
+    } else {
+      long nanos = fold(ctx, TimeDuration::parseNanoseconds);
+      builder.addToken(new TimeDuration(nanos + "ns", nanos));
+    }
     return builder;
   }
 
@@ -268,13 +286,100 @@ public final class RecipeVisitor extends DirectivesBaseVisitor<RecipeSymbol.Buil
     int childCount = ctx.getChildCount();
     StringBuilder sb = new StringBuilder();
     for (int i = 1; i < childCount - 1; ++i) {
-      ParseTree child = ctx.getChild(i);
-      sb.append(child.getText()).append(" ");
+      String value = resolveUnitFunction(ctx, i);
+      if (value != null) {
+        sb.append(value);
+        i += 3;
+      } else {
+        appendResolved(ctx.getChild(i), sb);
+      }
+      sb.append(" ");
     }
     builder.addToken(new Expression(sb.toString()));
     return builder;
   }
 
+  /**
+   * Appends the text of a part of a condition, with unit literals resolved to {@code long} constants:
+   * byte sizes in bytes and time durations in nanoseconds, so {@code size > 10MB} is evaluated as
+   * {@code size > 10485760L} and compares with a column holding a number of bytes. Literals that are
+   * also JEXL number literals, such as {@code 2d} (a double), {@code 24h} (a BigInteger) or
+   * {@code 512b} (a BigDecimal), keep their JEXL meaning; {@code bytes('512b')} and
+   * {@code nanos('2d')} always resolve to a size or a duration.
+   */
+  private static void appendResolved(ParseTree node, StringBuilder sb) {
+    if (node instanceof TerminalNode) {
+      sb.append(resolveUnitLiteral((TerminalNode) node));
+      return;
+    }
+    for (int i = 0; i < node.getChildCount(); ++i) {
+      String value = resolveUnitFunction(node, i);
+      if (value != null) {
+        sb.append(value);
+        i += 3;
+      } else {
+        appendResolved(node.getChild(i), sb);
+      }
+    }
+  }
+
+  private static String resolveUnitLiteral(TerminalNode node) {
+    String text = node.getText();
+    int type = node.getSymbol().getType();
+    if ((type != DirectivesParser.BYTE_SIZE && type != DirectivesParser.TIME_DURATION) || isJexlNumber(text)) {
+      return text;
+    }
+    if (type == DirectivesParser.BYTE_SIZE) {
+      return ByteSize.parseBytes(text) + "L";
+    }
+    return TimeDuration.parseNanoseconds(text) + "L";
+  }
+
+  /**
+   * Resolves a call {@code bytes('<size>')} or {@code nanos('<duration>')} starting at child
+   * {@code index} of {@code parent} to a {@code long} constant, or returns {@code null} if the
+   * children there are not such a call.
+   */
+  private static String resolveUnitFunction(ParseTree parent, int index) {
+    if (index + 3 >= parent.getChildCount()) {
+      return null;
+    }
+    for (int i = index; i <= index + 3; ++i) {
+      if (!(parent.getChild(i) instanceof TerminalNode)) {
+        return null;
+      }
+    }
+    String function = parent.getChild(index).getText();
+    if ((!"bytes".equals(function) && !"nanos".equals(function))
+      || !"(".equals(parent.getChild(index + 1).getText())
+      || ((TerminalNode) parent.getChild(index + 2)).getSymbol().getType() != DirectivesParser.String
+      || !")".equals(parent.getChild(index + 3).getText())) {
+      return null;
+    }
+    String literal = parent.getChild(index + 2).getText();
+    literal = literal.substring(1, literal.length() - 1).trim();
+    if ("bytes".equals(function)) {
+      return ByteSize.parseBytes(literal) + "L";
+    }
+    return TimeDuration.parseNanoseconds(literal) + "L";
+  }
+
+  /**
+   * Returns whether a unit literal is also a JEXL number literal: a number followed by a single
+   * BigDecimal ({@code b}), double ({@code d}) or, for integers only, BigInteger ({@code h}) suffix.
+   */
+  private static boolean isJexlNumber(String text) {
+    int length = text.length();
+    if (length < 2 || !Character.isDigit(text.charAt(length - 2))) {
+      return false;
+    }
+    char suffix = text.charAt(length - 1);
+    if (suffix == 'h' || suffix == 'H') {
+      return text.indexOf('.') < 0;
+    }
+    return "dDbB".indexOf(suffix) >= 0;
+  }
+
   /**
    * A Directive has name and in the parsing context it's called a command.
    * This visitor methods extracts the command and creates a toke type <code>DirectiveName</code>
@@ -349,10 +454,45 @@ public final class RecipeVisitor extends DirectivesBaseVisitor<RecipeSymbol.Buil
   private SourceInfo getOriginalSource(ParserRuleContext ctx) {
     int a = ctx.getStart().getStartIndex();
     int b = ctx.getStop().getStopIndex();
-    Interval interval = new Interval(a, b);
-    String text = ctx.start.getInputStream().getText(interval);
+    // The text is extracted from the recipe only when it is asked for
+    CharStream stream = ctx.getStart().getInputStream();
+    if (recipe == null || recipe.getStream() != stream) {
+      recipe = new CharStreamSequence(stream);
+    }
     int lineno = ctx.getStart().getLine();
     int column = ctx.getStart().getCharPositionInLine();
-    return new SourceInfo(lineno, column, text);
+    return new SourceInfo(lineno, column, recipe, a, b + 1);
+  }
+
+  /**
+   * Adds up the unit literals of a <code>byteSize</code> or <code>timeDuration</code>, which alternate
+   * with <code>+</code> and <code>-</code> operators. The total must not be negative.
+   */
+  private static long fold(ParserRuleContext ctx, ToLongFunction<String> parser) {
+    long total = parser.applyAsLong(ctx.getChild(0).getText());
+    try {
+      for (int i = 1; i < ctx.getChildCount(); i += 2) {
+        long value = parser.applyAsLong(ctx.getChild(i + 1).getText());
+        if (ctx.getChild(i).getText().equals("-")) {
+          total = Math.subtractExact(total, value);
+        } else {
+          total = Math.addExact(total, value);
+        }
+      }
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Value out of range: " + getSpacedText(ctx), e);
+    }
+    if (total < 0) {
+      throw new IllegalArgumentException("Negative value: " + getSpacedText(ctx));
+    }
+    return total;
+  }
+
+  private static String getSpacedText(ParserRuleContext ctx) {
+    StringBuilder sb = new StringBuilder(ctx.getChild(0).getText());
+    for (int i = 1; i < ctx.getChildCount(); i++) {
+      sb.append(' ').append(ctx.getChild(i).getText());
+    }
+    return sb.toString();
   }
 }
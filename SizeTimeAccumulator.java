@@ -0,0 +1,101 @@
+package io.cdap.directives.aggregates;
+
+/**
+ * Running byte size and time duration totals for the {@link SizeTimeAggregator}.
+ *
+ * <p>Sources that produce primitive values without building {@code Row}s accumulate into an
+ * instance of this class, possibly one per thread, and hand the merged result to
+ * {@link SizeTimeAggregator#merge(SizeTimeAccumulator, io.cdap.wrangler.api.ExecutorContext)}.
+ * Totals are kept in 128 bits, so they stay exact past {@link Long#MAX_VALUE}. Instances are not
+ * thread-safe.</p>
+ */
+public final class SizeTimeAccumulator {
+    private final Int128Accumulator totalBytes = new Int128Accumulator();
+    private final Int128Accumulator totalNanos = new Int128Accumulator();
+    private long count;
+
+    /**
+     * Adds one record.
+     *
+     * @param bytes size of the record in bytes, 0 if absent
+     * @param nanos duration of the record in nanoseconds, 0 if absent
+     */
+    public void add(long bytes, long nanos) {
+        totalBytes.add(bytes);
+        totalNanos.add(nanos);
+        count++;
+    }
+
+    /**
+     * Adds a batch of records.
+     *
+     * @param bytes sizes of the records in bytes
+     * @param nanos durations of the records in nanoseconds
+     * @param length number of records in the batch
+     */
+    public void add(long[] bytes, long[] nanos, int length) {
+        add(bytes, null, nanos, null, length);
+    }
+
+    /**
+     * Adds a batch of records held as columns with validity bitmaps, as filled by
+     * {@link io.cdap.wrangler.api.parser.UnitColumns}. Every record counts; a value whose validity
+     * bit is clear is treated as absent and contributes 0.
+     *
+     * @param bytes sizes of the records in bytes
+     * @param sizeValidity bitmap of valid sizes, or {@code null} if all are valid
+     * @param nanos durations of the records in nanoseconds
+     * @param timeValidity bitmap of valid durations, or {@code null} if all are valid
+     * @param length number of records in the batch
+     */
+    public void add(long[] bytes, long[] sizeValidity, long[] nanos, long[] timeValidity, int length) {
+        totalBytes.add(bytes, sizeValidity, length);
+        totalNanos.add(nanos, timeValidity, length);
+        count += length;
+    }
+
+    /**
+     * Adds the totals of another accumulator to this one.
+     */
+    public void merge(SizeTimeAccumulator other) {
+        totalBytes.add(other.totalBytes);
+        totalNanos.add(other.totalNanos);
+        count += other.count;
+    }
+
+    /**
+     * Returns the total size in bytes.
+     *
+     * @throws ArithmeticException if the total does not fit in a {@code long}
+     */
+    public long getTotalBytes() {
+        return totalBytes.longValueExact();
+    }
+
+    /**
+     * Returns the total duration in nanoseconds.
+     *
+     * @throws ArithmeticException if the total does not fit in a {@code long}
+     */
+    public long getTotalNanos() {
+        return totalNanos.longValueExact();
+    }
+
+    /**
+     * Returns the total size in bytes as a 128-bit value.
+     */
+    public Int128Accumulator getWideTotalBytes() {
+        return new Int128Accumulator(totalBytes.getHigh(), totalBytes.getLow());
+    }
+
+    /**
+     * Returns the total duration in nanoseconds as a 128-bit value.
+     */
+    public Int128Accumulator getWideTotalNanos() {
+        return new Int128Accumulator(totalNanos.getHigh(), totalNanos.getLow());
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
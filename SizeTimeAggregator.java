@@ -20,6 +20,7 @@ import io.cdap.wrangler.api.parser.ColumnName;
 import io.cdap.wrangler.api.parser.Text;
 import io.cdap.wrangler.api.parser.TimeDuration;
 import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UnitColumns;
 import io.cdap.wrangler.api.parser.UsageDefinition;
 
 import java.util.ArrayList;
@@ -33,9 +34,11 @@ import java.util.List;
 public class SizeTimeAggregator implements Directive, Lineage {
     public static final String NAME = "aggregate-size-time";
 
-    // Store keys for the transient store
+    // Store keys for the transient store; totals are 128-bit, stored as a low and a high word
     private static final String TOTAL_SIZE_KEY = "aggregate_total_size_bytes";
-    private static final String TOTAL_TIME_KEY = "aggregate_total_time_ms";
+    private static final String TOTAL_SIZE_HIGH_KEY = "aggregate_total_size_bytes_high";
+    private static final String TOTAL_TIME_KEY = "aggregate_total_time_ns";
+    private static final String TOTAL_TIME_HIGH_KEY = "aggregate_total_time_ns_high";
     private static final String COUNT_KEY = "aggregate_count";
 
     // Source column names
@@ -47,9 +50,10 @@ public class SizeTimeAggregator implements Directive, Lineage {
     private String targetTimeColumnName;
 
     // Unit settings for output (optional)
-    private String sizeUnit; // Default: bytes, Options: KB, MB, GB
-    private String timeUnit; // Default: ms, Options: s, m, h
+    private String sizeUnit; // Default: bytes, Options: KB, MB, GB, KiB, MiB, GiB
+    private String timeUnit; // Default: ms, Options: ns, us, s, m, h
     private boolean useAverage; // Default: false (use total)
+    private ByteSize.UnitSystem unitSystem; // Default: IEC (KB = 1024 bytes), Options: SI (KB = 1000 bytes)
 
     @Override
     public UsageDefinition define() {
@@ -61,6 +65,7 @@ public class SizeTimeAggregator implements Directive, Lineage {
         builder.define("size-unit", TokenType.TEXT, Optional.TRUE);
         builder.define("time-unit", TokenType.TEXT, Optional.TRUE);
         builder.define("aggregate-type", TokenType.TEXT, Optional.TRUE);
+        builder.define("unit-system", TokenType.TEXT, Optional.TRUE);
         return builder.build();
     }
 
@@ -81,18 +86,32 @@ public class SizeTimeAggregator implements Directive, Lineage {
                 : "total";
         this.useAverage = "average".equals(aggregateType) || "avg".equals(aggregateType);
 
+        // Determine whether KB, MB, GB are powers of 1024 (iec) or of 1000 (si)
+        String system = args.contains("unit-system")
+                ? ((Text) args.value("unit-system")).value().toLowerCase()
+                : "iec";
+        if ("iec".equals(system)) {
+            this.unitSystem = ByteSize.UnitSystem.IEC;
+        } else if ("si".equals(system)) {
+            this.unitSystem = ByteSize.UnitSystem.SI;
+        } else {
+            throw new DirectiveParseException(
+                    NAME, String.format("Invalid unit system '%s'. Supported unit systems are iec, si", system));
+        }
+
         // Validate size unit
-        if (!("BYTES".equals(sizeUnit) || "KB".equals(sizeUnit) ||
-                "MB".equals(sizeUnit) || "GB".equals(sizeUnit))) {
+        if (!("BYTES".equals(sizeUnit) || "KB".equals(sizeUnit) || "MB".equals(sizeUnit) || "GB".equals(sizeUnit) ||
+                "KIB".equals(sizeUnit) || "MIB".equals(sizeUnit) || "GIB".equals(sizeUnit))) {
             throw new DirectiveParseException(
-                    NAME, String.format("Invalid size unit '%s'. Supported units are BYTES, KB, MB, GB", sizeUnit));
+                    NAME, String.format("Invalid size unit '%s'. Supported units are BYTES, KB, MB, GB, KiB, MiB, GiB",
+                                        sizeUnit));
         }
 
         // Validate time unit
-        if (!("ms".equals(timeUnit) || "s".equals(timeUnit) ||
-                "m".equals(timeUnit) || "h".equals(timeUnit))) {
+        if (!("ns".equals(timeUnit) || "us".equals(timeUnit) || "ms".equals(timeUnit) ||
+                "s".equals(timeUnit) || "m".equals(timeUnit) || "h".equals(timeUnit))) {
             throw new DirectiveParseException(
-                    NAME, String.format("Invalid time unit '%s'. Supported units are ms, s, m, h", timeUnit));
+                    NAME, String.format("Invalid time unit '%s'. Supported units are ns, us, ms, s, m, h", timeUnit));
         }
     }
 
@@ -109,7 +128,10 @@ public class SizeTimeAggregator implements Directive, Lineage {
         // Initialize counters if they don't exist
         initializeCounters(store);
 
-        // Process each row to accumulate values
+        // Collect both columns of the batch, keeping only values that can be parsed
+        int length = 0;
+        Object[] sizeValues = new Object[rows.size()];
+        Object[] timeValues = new Object[rows.size()];
         for (Row row : rows) {
             int sizeIdx = row.find(sizeColumnName);
             int timeIdx = row.find(timeColumnName);
@@ -119,72 +141,100 @@ public class SizeTimeAggregator implements Directive, Lineage {
                 continue;
             }
 
-            // Get values from columns
             Object sizeObj = row.getValue(sizeIdx);
             Object timeObj = row.getValue(timeIdx);
+            sizeValues[length] = sizeObj instanceof ByteSize || sizeObj instanceof String ? sizeObj : null;
+            timeValues[length] = timeObj instanceof TimeDuration || timeObj instanceof String ? timeObj : null;
+            length++;
+        }
 
-            // Process byte size if it's a valid type
-            if (sizeObj != null) {
-                long sizeBytes = 0;
-                if (sizeObj instanceof ByteSize) {
-                    sizeBytes = ((ByteSize) sizeObj).getBytes();
-                } else if (sizeObj instanceof String) {
-                    try {
-                        ByteSize byteSize = new ByteSize((String) sizeObj);
-                        sizeBytes = byteSize.getBytes();
-                    } catch (IllegalArgumentException e) {
-                        // Skip invalid format
-                        continue;
-                    }
-                }
-
-                // Add size to total
-                if (sizeBytes > 0) {
-                    long currentTotal = store.get(TOTAL_SIZE_KEY);
-                    store.set(TransientVariableScope.GLOBAL, TOTAL_SIZE_KEY, currentTotal + sizeBytes);
-                }
-            }
-
-            // Process time duration if it's a valid type
-            if (timeObj != null) {
-                long timeMs = 0;
-                if (timeObj instanceof TimeDuration) {
-                    timeMs = ((TimeDuration) timeObj).getMilliseconds();
-                } else if (timeObj instanceof String) {
-                    try {
-                        TimeDuration timeDuration = new TimeDuration((String) timeObj);
-                        timeMs = timeDuration.getMilliseconds();
-                    } catch (IllegalArgumentException e) {
-                        // Skip invalid format
-                        continue;
-                    }
-                }
-
-                // Add time to total
-                if (timeMs > 0) {
-                    long currentTotal = store.get(TOTAL_TIME_KEY);
-                    store.set(TransientVariableScope.GLOBAL, TOTAL_TIME_KEY, currentTotal + timeMs);
-                }
+        // Parse the whole batch at once, keeping nanosecond precision for durations
+        long[] sizes = new long[length];
+        long[] times = new long[length];
+        long[] sizeValidity = UnitColumns.newValidity(length);
+        long[] timeValidity = UnitColumns.newValidity(length);
+        UnitColumns.parseBytes(sizeValues, length, sizes, sizeValidity, unitSystem);
+        UnitColumns.parseNanoseconds(timeValues, length, times, timeValidity);
+
+        SizeTimeAccumulator batch = new SizeTimeAccumulator();
+        for (int i = 0; i < length; i++) {
+            boolean sizeValid = UnitColumns.isValid(sizeValidity, i);
+            boolean timeValid = UnitColumns.isValid(timeValidity, i);
+
+            // Skip rows where a present value has an invalid format
+            if ((sizeValues[i] != null && !sizeValid) || (timeValues[i] != null && !timeValid)) {
+                continue;
             }
-
-            // Increment count
-            long currentCount = store.get(COUNT_KEY);
-            store.set(TransientVariableScope.GLOBAL, COUNT_KEY, currentCount + 1);
+            batch.add(sizeValid ? sizes[i] : 0L, timeValid ? times[i] : 0L);
         }
 
+        // Fold the batch into the running totals
+        merge(batch, context);
+
         // Return unchanged rows during normal processing
         return rows;
     }
 
+    /**
+     * Aggregates a batch held as primitive columns, e.g. from a reader that already produces
+     * columnar data, without materializing {@link Row}s. Every record counts towards the average;
+     * a value whose validity bit is clear is treated as absent, like a missing value in a row.
+     *
+     * @param bytes sizes in bytes
+     * @param sizeValidity bitmap of valid sizes (see {@link UnitColumns}), or {@code null} if all are valid
+     * @param nanos durations in nanoseconds
+     * @param timeValidity bitmap of valid durations, or {@code null} if all are valid
+     * @param length number of records in the batch
+     */
+    public void aggregate(long[] bytes, long[] sizeValidity, long[] nanos, long[] timeValidity, int length,
+                          ExecutorContext context) {
+        SizeTimeAccumulator batch = new SizeTimeAccumulator();
+        batch.add(bytes, sizeValidity, nanos, timeValidity, length);
+        merge(batch, context);
+    }
+
+    /**
+     * Adds totals computed outside of {@link #execute(List, ExecutorContext)}, e.g. by the
+     * {@link AccessLogReader}, to the aggregation state held in the transient store.
+     */
+    public void merge(SizeTimeAccumulator accumulator, ExecutorContext context) {
+        TransientStore store = context.getTransientStore();
+        initializeCounters(store);
+
+        Int128Accumulator totalSize = load(store, TOTAL_SIZE_HIGH_KEY, TOTAL_SIZE_KEY);
+        totalSize.add(accumulator.getWideTotalBytes());
+        save(store, TOTAL_SIZE_HIGH_KEY, TOTAL_SIZE_KEY, totalSize);
+
+        Int128Accumulator totalTime = load(store, TOTAL_TIME_HIGH_KEY, TOTAL_TIME_KEY);
+        totalTime.add(accumulator.getWideTotalNanos());
+        save(store, TOTAL_TIME_HIGH_KEY, TOTAL_TIME_KEY, totalTime);
+
+        long currentCount = store.get(COUNT_KEY);
+        store.set(TransientVariableScope.GLOBAL, COUNT_KEY, currentCount + accumulator.getCount());
+    }
+
+    private static Int128Accumulator load(TransientStore store, String highKey, String lowKey) {
+        long high = store.get(highKey);
+        long low = store.get(lowKey);
+        return new Int128Accumulator(high, low);
+    }
+
+    private static void save(TransientStore store, String highKey, String lowKey, Int128Accumulator total) {
+        store.set(TransientVariableScope.GLOBAL, highKey, total.getHigh());
+        store.set(TransientVariableScope.GLOBAL, lowKey, total.getLow());
+    }
+
     /**
      * Initialize the counters in the transient store if they don't exist
      */
     private void initializeCounters(TransientStore store) {
         if (store.get(TOTAL_SIZE_KEY) == null) {
             store.set(TransientVariableScope.GLOBAL, TOTAL_SIZE_KEY, 0L);
+            store.set(TransientVariableScope.GLOBAL, TOTAL_SIZE_HIGH_KEY, 0L);
         }
         if (store.get(TOTAL_TIME_KEY) == null) {
             store.set(TransientVariableScope.GLOBAL, TOTAL_TIME_KEY, 0L);
+            store.set(TransientVariableScope.GLOBAL, TOTAL_TIME_HIGH_KEY, 0L);
         }
         if (store.get(COUNT_KEY) == null) {
             store.set(TransientVariableScope.GLOBAL, COUNT_KEY, 0L);
@@ -198,8 +248,10 @@ public class SizeTimeAggregator implements Directive, Lineage {
      */
     public Row getAggregationResult(ExecutorContext context) {
         TransientStore store = context.getTransientStore();
-        long totalSizeBytes = store.get(TOTAL_SIZE_KEY);
-        long totalTimeMs = store.get(TOTAL_TIME_KEY);
+        initializeCounters(store);
+        // Totals are exact up to here; they are converted to doubles only for the output units
+        double totalSizeBytes = load(store, TOTAL_SIZE_HIGH_KEY, TOTAL_SIZE_KEY).doubleValue();
+        double totalTimeNs = load(store, TOTAL_TIME_HIGH_KEY, TOTAL_TIME_KEY).doubleValue();
         long count = store.get(COUNT_KEY);
 
         // Create a new result row
@@ -207,14 +259,24 @@ public class SizeTimeAggregator implements Directive, Lineage {
 
         // Calculate size based on unit
         double sizeValue;
+        double kilo = unitSystem == ByteSize.UnitSystem.SI ? 1000.0 : 1024.0;
         switch (sizeUnit) {
             case "KB":
-                sizeValue = totalSizeBytes / 1024.0;
+                sizeValue = totalSizeBytes / kilo;
                 break;
             case "MB":
-                sizeValue = totalSizeBytes / (1024.0 * 1024.0);
+                sizeValue = totalSizeBytes / (kilo * kilo);
                 break;
             case "GB":
+                sizeValue = totalSizeBytes / (kilo * kilo * kilo);
+                break;
+            case "KIB":
+                sizeValue = totalSizeBytes / 1024.0;
+                break;
+            case "MIB":
+                sizeValue = totalSizeBytes / (1024.0 * 1024.0);
+                break;
+            case "GIB":
                 sizeValue = totalSizeBytes / (1024.0 * 1024.0 * 1024.0);
                 break;
             case "BYTES":
@@ -223,32 +285,36 @@ public class SizeTimeAggregator implements Directive, Lineage {
                 break;
         }
 
-        // Calculate time based on unit and aggregation type
+        // Calculate time based on unit
         double timeValue;
-        double timeInSelectedUnit;
 
         // Convert to selected time unit
         switch (timeUnit) {
+            case "ns":
+                timeValue = totalTimeNs;
+                break;
+            case "us":
+                timeValue = totalTimeNs / 1000.0;
+                break;
             case "s":
-                timeInSelectedUnit = totalTimeMs / 1000.0;
+                timeValue = totalTimeNs / 1e9;
                 break;
             case "m":
-                timeInSelectedUnit = totalTimeMs / (1000.0 * 60);
+                timeValue = totalTimeNs / (1e9 * 60);
                 break;
             case "h":
-                timeInSelectedUnit = totalTimeMs / (1000.0 * 60 * 60);
+                timeValue = totalTimeNs / (1e9 * 60 * 60);
                 break;
             case "ms":
             default:
-                timeInSelectedUnit = totalTimeMs;
+                timeValue = totalTimeNs / 1e6;
                 break;
         }
 
-        // Apply aggregation type
+        // Apply aggregation type to both values
         if (useAverage && count > 0) {
-            timeValue = timeInSelectedUnit / count;
-        } else {
-            timeValue = timeInSelectedUnit;
+            sizeValue /= count;
+            timeValue /= count;
         }
 
         // Add values to the result row
@@ -257,7 +323,9 @@ public class SizeTimeAggregator implements Directive, Lineage {
 
         // Reset counters for next use
         store.set(TransientVariableScope.GLOBAL, TOTAL_SIZE_KEY, 0L);
+        store.set(TransientVariableScope.GLOBAL, TOTAL_SIZE_HIGH_KEY, 0L);
         store.set(TransientVariableScope.GLOBAL, TOTAL_TIME_KEY, 0L);
+        store.set(TransientVariableScope.GLOBAL, TOTAL_TIME_HIGH_KEY, 0L);
         store.set(TransientVariableScope.GLOBAL, COUNT_KEY, 0L);
 
         return result;
@@ -7,6 +7,7 @@ import io.cdap.wrangler.api.Row;
 import io.cdap.wrangler.api.parser.ColumnName;
 import io.cdap.wrangler.api.parser.Text;
 import io.cdap.wrangler.api.parser.TokenType;
+import io.cdap.wrangler.api.parser.UnitColumns;
 import io.cdap.wrangler.api.parser.UsageDefinition;
 import io.cdap.wrangler.parser.MapArguments;
 import org.junit.Assert;
@@ -27,7 +28,7 @@ public class SizeTimeAggregatorTest {
         SizeTimeAggregator directive = new SizeTimeAggregator();
         UsageDefinition definition = directive.define();
         Assert.assertNotNull(definition);
-        Assert.assertEquals(7, definition.getTokens().size());
+        Assert.assertEquals(8, definition.getTokens().size());
         Assert.assertEquals(TokenType.COLUMN_NAME, definition.getTokens().get(0).type());
         Assert.assertEquals(TokenType.COLUMN_NAME, definition.getTokens().get(1).type());
         Assert.assertEquals(TokenType.COLUMN_NAME, definition.getTokens().get(2).type());
@@ -35,6 +36,7 @@ public class SizeTimeAggregatorTest {
         Assert.assertEquals(TokenType.TEXT, definition.getTokens().get(4).type());
         Assert.assertEquals(TokenType.TEXT, definition.getTokens().get(5).type());
         Assert.assertEquals(TokenType.TEXT, definition.getTokens().get(6).type());
+        Assert.assertEquals(TokenType.TEXT, definition.getTokens().get(7).type());
     }
 
     @Test
@@ -154,6 +156,79 @@ public class SizeTimeAggregatorTest {
         Assert.assertEquals(10.0, ((Number) result.getValue("avg_time")).doubleValue(), 0.0001);
     }
 
+    @Test
+    public void testMicrosecondAggregation() throws Exception {
+        SizeTimeAggregator directive = new SizeTimeAggregator();
+
+        // Set up arguments with microsecond output
+        Map<String, Object> args = new HashMap<>();
+        args.put("size-column", new ColumnName("size"));
+        args.put("time-column", new ColumnName("time"));
+        args.put("target-size-column", new ColumnName("total_size"));
+        args.put("target-time-column", new ColumnName("total_time"));
+        args.put("time-unit", new Text("us"));
+
+        // Initialize the directive manually
+        directive.initialize(new DirectiveArgumentsTest(args));
+
+        // RPC latencies well below one millisecond
+        List<Row> rows = Arrays.asList(
+                new Row("size", "1KB").add("time", "35us"),
+                new Row("size", "1KB").add("time", "42.5us"),
+                new Row("size", "1KB").add("time", "900ns"));
+
+        ExecutorContext context = new TestingPipelineContext();
+        directive.execute(rows, context);
+        Row result = directive.getAggregationResult(context);
+
+        // 35us + 42.5us + 0.9us = 78.4us, none of which is lost to millisecond rounding
+        Assert.assertEquals(78.4, ((Number) result.getValue("total_time")).doubleValue(), 0.0001);
+    }
+
+    @Test
+    public void testSiUnitSystem() throws Exception {
+        SizeTimeAggregator directive = new SizeTimeAggregator();
+
+        // Set up arguments with SI units for both input parsing and output
+        Map<String, Object> args = new HashMap<>();
+        args.put("size-column", new ColumnName("size"));
+        args.put("time-column", new ColumnName("time"));
+        args.put("target-size-column", new ColumnName("total_size"));
+        args.put("target-time-column", new ColumnName("total_time"));
+        args.put("size-unit", new Text("KB"));
+        args.put("unit-system", new Text("si"));
+
+        // Initialize the directive manually
+        directive.initialize(new DirectiveArgumentsTest(args));
+
+        // KB is 1000 bytes under SI, KiB is always 1024 bytes
+        List<Row> rows = Arrays.asList(
+                new Row("size", "2KB").add("time", "1s"),
+                new Row("size", "1KiB").add("time", "1s"),
+                new Row("size", "1.5MB").add("time", "1s"));
+
+        ExecutorContext context = new TestingPipelineContext();
+        directive.execute(rows, context);
+        Row result = directive.getAggregationResult(context);
+
+        // 2000 + 1024 + 1500000 = 1503024 bytes = 1503.024 KB
+        Assert.assertEquals(1503.024, ((Number) result.getValue("total_size")).doubleValue(), 0.0001);
+    }
+
+    @Test(expected = DirectiveParseException.class)
+    public void testInvalidUnitSystem() throws Exception {
+        SizeTimeAggregator directive = new SizeTimeAggregator();
+
+        Map<String, Object> args = new HashMap<>();
+        args.put("size-column", new ColumnName("size"));
+        args.put("time-column", new ColumnName("time"));
+        args.put("target-size-column", new ColumnName("total_size"));
+        args.put("target-time-column", new ColumnName("total_time"));
+        args.put("unit-system", new Text("metric"));
+
+        directive.initialize(new DirectiveArgumentsTest(args));
+    }
+
     @Test(expected = DirectiveParseException.class)
     public void testInvalidSizeUnit() throws Exception {
         SizeTimeAggregator directive = new SizeTimeAggregator();
@@ -227,6 +302,68 @@ public class SizeTimeAggregatorTest {
         Assert.assertEquals(20000.0, ((Number) result.getValue("total_time")).doubleValue(), 0.0001);
     }
 
+    @Test
+    public void testColumnarAggregation() throws Exception {
+        SizeTimeAggregator directive = new SizeTimeAggregator();
+
+        Map<String, Object> args = new HashMap<>();
+        args.put("size-column", new ColumnName("size"));
+        args.put("time-column", new ColumnName("time"));
+        args.put("target-size-column", new ColumnName("total_size"));
+        args.put("target-time-column", new ColumnName("total_time"));
+        args.put("time-unit", new Text("ns"));
+        directive.initialize(new DirectiveArgumentsTest(args));
+
+        // 130 records span three bitmap words; every third size is absent
+        int length = 130;
+        long[] bytes = new long[length];
+        long[] nanos = new long[length];
+        long[] sizeValidity = UnitColumns.newValidity(length);
+        long expectedBytes = 0;
+        for (int i = 0; i < length; i++) {
+            bytes[i] = i % 3 == 0 ? -1L : i;
+            nanos[i] = 1000L;
+            if (i % 3 != 0) {
+                sizeValidity[i >>> 6] |= 1L << i;
+                expectedBytes += i;
+            }
+        }
+        // A value too large for the fast path of its word
+        bytes[100] = 1L << 60;
+        expectedBytes += (1L << 60) - 100;
+
+        ExecutorContext context = new TestingPipelineContext();
+        directive.aggregate(bytes, sizeValidity, nanos, null, length, context);
+        Row result = directive.getAggregationResult(context);
+
+        Assert.assertEquals((double) expectedBytes, ((Number) result.getValue("total_size")).doubleValue(), 0.0001);
+        Assert.assertEquals(130000.0, ((Number) result.getValue("total_time")).doubleValue(), 0.0001);
+    }
+
+    @Test
+    public void testTotalBeyondLongRange() throws Exception {
+        SizeTimeAggregator directive = new SizeTimeAggregator();
+
+        Map<String, Object> args = new HashMap<>();
+        args.put("size-column", new ColumnName("size"));
+        args.put("time-column", new ColumnName("time"));
+        args.put("target-size-column", new ColumnName("total_size"));
+        args.put("target-time-column", new ColumnName("total_time"));
+        args.put("size-unit", new Text("GiB"));
+        directive.initialize(new DirectiveArgumentsTest(args));
+
+        // 16 batches of 4EiB each add up to 64EiB, far beyond Long.MAX_VALUE bytes
+        ExecutorContext context = new TestingPipelineContext();
+        long[] bytes = { 1L << 62 };
+        long[] nanos = { 1L };
+        for (int i = 0; i < 16; i++) {
+            directive.aggregate(bytes, null, nanos, null, 1, context);
+        }
+        Row result = directive.getAggregationResult(context);
+
+        Assert.assertEquals(64.0 * (1L << 30), ((Number) result.getValue("total_size")).doubleValue(), 0.0001);
+    }
+
     /**
      * Simple implementation of Arguments for testing.
      */
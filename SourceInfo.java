@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2017-2019 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.wrangler.api;
+
+import io.cdap.wrangler.api.annotations.PublicEvolving;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * This class <code>SourceInfo</code> holds the position of a directive in a recipe, along with
+ * the text of the directive.
+ *
+ * <p>The text is only needed for error messages and lineage, so the compiler creates instances
+ * that keep the start and end offsets of the directive into the recipe, and the text is extracted
+ * the first time <code>getSource</code> is called. The reference to the recipe is dropped once the
+ * text is extracted, so that a compiled recipe kept in a cache does not retain the whole input.</p>
+ */
+@PublicEvolving
+public final class SourceInfo implements Serializable {
+  private final int lineno;
+  private final int colno;
+  private volatile String source;
+  // Recipe and offsets of the source text, until it is extracted
+  private transient volatile CharSequence recipe;
+  private transient int start;
+  private transient int end;
+
+  public SourceInfo(int lineno, int colno, String source) {
+    this.lineno = lineno;
+    this.colno = colno;
+    this.source = source;
+  }
+
+  /**
+   * Creates a <code>SourceInfo</code> whose text is <code>recipe.subSequence(start, end)</code>,
+   * extracted on demand.
+   */
+  public SourceInfo(int lineno, int colno, CharSequence recipe, int start, int end) {
+    this.lineno = lineno;
+    this.colno = colno;
+    this.recipe = recipe;
+    this.start = start;
+    this.end = end;
+  }
+
+  private SourceInfo(int lineno, int colno, SourceInfo other) {
+    this.lineno = lineno;
+    this.colno = colno;
+    // The recipe is read first, as it is cleared only after the source has been set
+    this.recipe = other.recipe;
+    this.source = other.source;
+    this.start = other.start;
+    this.end = other.end;
+  }
+
+  public int getLineNumber() {
+    return lineno;
+  }
+
+  public int getColumnNumber() {
+    return colno;
+  }
+
+  public String getSource() {
+    String text = source;
+    if (text == null) {
+      CharSequence input = recipe;
+      if (input == null) {
+        // Another thread extracted the text and released the recipe
+        return source;
+      }
+      // Racing threads extract equal strings, so no synchronization is needed
+      text = input.subSequence(start, end).toString();
+      source = text;
+      recipe = null;
+    }
+    return text;
+  }
+
+  /**
+   * Returns the same source at another position, without extracting its text.
+   */
+  public SourceInfo withPosition(int lineno, int colno) {
+    return new SourceInfo(lineno, colno, this);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%3d:%-3d - '%s'", lineno, colno, getSource());
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    getSource();
+    out.defaultWriteObject();
+  }
+}
@@ -0,0 +1,54 @@
+package io.cdap.wrangler.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+
+/**
+ * Tests for {@link SourceInfo}.
+ */
+public class SourceInfoTest {
+
+    @Test
+    public void testLazySource() throws Exception {
+        StringBuilder recipe = new StringBuilder("drop :a;\nkeep :b;");
+        SourceInfo info = new SourceInfo(2, 0, recipe, 9, 16);
+        Assert.assertEquals("keep :b", info.getSource());
+
+        // The text is kept once extracted, and the recipe is released
+        recipe.setLength(0);
+        Assert.assertEquals("keep :b", info.getSource());
+        Assert.assertEquals("  2:0   - 'keep :b'", info.toString());
+        Field field = SourceInfo.class.getDeclaredField("recipe");
+        field.setAccessible(true);
+        Assert.assertNull(field.get(info));
+    }
+
+    @Test
+    public void testWithPosition() {
+        SourceInfo info = new SourceInfo(2, 0, "drop :a;\nkeep :b;", 9, 16).withPosition(5, 3);
+        Assert.assertEquals(5, info.getLineNumber());
+        Assert.assertEquals(3, info.getColumnNumber());
+        Assert.assertEquals("keep :b", info.getSource());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        SourceInfo info = new SourceInfo(1, 4, "    drop :a;", 4, 11);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(info);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            SourceInfo copy = (SourceInfo) in.readObject();
+            Assert.assertEquals(1, copy.getLineNumber());
+            Assert.assertEquals(4, copy.getColumnNumber());
+            Assert.assertEquals("drop :a", copy.getSource());
+        }
+    }
+}
@@ -4,60 +4,377 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.cdap.wrangler.api.annotations.PublicEvolving;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 
 
 @PublicEvolving
 public class TimeDuration implements Token {
-    private static final Pattern TIME_PATTERN = Pattern.compile("(\\d+)\\s*([smhdwy]|mo)");
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long NANOS_PER_MILLI = 1000 * NANOS_PER_MICRO;
+    private static final long NANOS_PER_SECOND = 1000 * NANOS_PER_MILLI;
+    private static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+    private static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+    private static final long NANOS_PER_DAY = 24 * NANOS_PER_HOUR;
+
     private final String value;
-    private final long milliseconds;
+    private final long nanoseconds;
 
 
     public TimeDuration(String value) {
         this.value = value;
-        this.milliseconds = parseMilliseconds(value);
+        this.nanoseconds = parseNanoseconds(value);
+    }
+
+    /**
+     * Creates a duration whose value was resolved earlier, e.g. when it is read back from a
+     * compiled recipe. {@code value} is not parsed again.
+     */
+    public TimeDuration(String value, long nanoseconds) {
+        this.value = value;
+        this.nanoseconds = nanoseconds;
     }
 
     /**
-     * Parses a string representation of time duration into milliseconds.
+     * Parses a string representation of time duration into milliseconds, e.g. "5s", "1.5m",
+     * a compound duration such as "1h30m15s" or an ISO-8601 duration such as "PT1H30M".
+     * Sub-millisecond precision is truncated; use {@link #parseNanoseconds(CharSequence)} to keep it.
      *
      * @param durationStr String representation of a time duration (e.g., "5s")
      * @return The duration in milliseconds
      * @throws IllegalArgumentException if the string cannot be parsed
      */
-    private long parseMilliseconds(String durationStr) {
-        Matcher matcher = TIME_PATTERN.matcher(durationStr);
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Invalid time duration format: " + durationStr);
+    public static long parseMilliseconds(CharSequence durationStr) {
+        return parseNanoseconds(durationStr) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Parses the time duration held in {@code durationStr} between {@code start} (inclusive)
+     * and {@code end} (exclusive) into milliseconds.
+     *
+     * @see #parseMilliseconds(CharSequence)
+     */
+    public static long parseMilliseconds(CharSequence durationStr, int start, int end) {
+        return parseNanoseconds(durationStr, start, end) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Parses a string representation of time duration into nanoseconds. Accepts the same forms as
+     * {@link #parseMilliseconds(CharSequence)} plus the "us" and "ns" units.
+     * Fractional values are resolved with fixed-point integer arithmetic and truncated to
+     * whole nanoseconds; nothing is allocated unless the value is invalid.
+     *
+     * @param durationStr String representation of a time duration (e.g., "250us")
+     * @return The duration in nanoseconds
+     * @throws IllegalArgumentException if the string cannot be parsed or exceeds the range of a long
+     */
+    public static long parseNanoseconds(CharSequence durationStr) {
+        return parseNanoseconds(durationStr, 0, durationStr.length());
+    }
+
+    /**
+     * Parses the time duration held in {@code durationStr} between {@code start} (inclusive)
+     * and {@code end} (exclusive) into nanoseconds.
+     *
+     * @see #parseNanoseconds(CharSequence)
+     */
+    public static long parseNanoseconds(CharSequence durationStr, int start, int end) {
+        long nanos = scanNanoseconds(durationStr, start, end);
+        if (nanos < 0) {
+            throw UnitScanner.error(nanos, "time duration", durationStr, start, end);
+        }
+        return nanos;
+    }
+
+    /**
+     * Non-throwing form of {@link #parseNanoseconds(CharSequence, int, int)} for bulk parsers,
+     * which would otherwise pay for an exception per invalid value.
+     *
+     * @return the duration in nanoseconds, or a negative {@link UnitScanner} error code
+     */
+    public static long scanNanoseconds(CharSequence durationStr, int start, int end) {
+        if (start < end && (durationStr.charAt(start) == 'P' || durationStr.charAt(start) == 'p')) {
+            return scanIso(durationStr, start, end);
+        }
+
+        long total = 0;
+        int i = start;
+        // Compound durations such as "1h30m15s" are summed component by component in a single pass.
+        do {
+            int numberEnd = UnitScanner.scanNumber(durationStr, i, end);
+            if (numberEnd < 0) {
+                return UnitScanner.INVALID_FORMAT;
+            }
+            int unitStart = UnitScanner.skipWhitespace(durationStr, numberEnd, end);
+            int unitEnd = UnitScanner.scanUnit(durationStr, unitStart, end);
+            long multiplier = unitNanos(durationStr, unitStart, unitEnd);
+            if (multiplier < 0) {
+                return multiplier;
+            }
+            total = add(total, UnitScanner.scaleOrError(durationStr, i, numberEnd, multiplier));
+            if (total < 0) {
+                return total;
+            }
+            i = UnitScanner.skipWhitespace(durationStr, unitEnd, end);
+        } while (i < end);
+        return total;
+    }
+
+    /**
+     * Compares the time duration held in {@code durationStr} between {@code start} (inclusive)
+     * and {@code end} (exclusive) with {@code nanos}, with the result of
+     * {@code Long.compare(parseNanoseconds(durationStr, start, end), nanos)}. For a duration of a
+     * single component, the number of digits and the unit usually settle the comparison, in which
+     * case the digits are not converted at all; e.g. any duration of two digits in ms is below 1s.
+     *
+     * @throws IllegalArgumentException if the string cannot be parsed or exceeds the range of a long
+     */
+    public static int compareNanoseconds(CharSequence durationStr, int start, int end, long nanos) {
+        int order = compareNanosecondsOrError(durationStr, start, end, nanos);
+        if (order == UnitScanner.NOT_COMPARABLE) {
+            throw UnitScanner.error(scanNanoseconds(durationStr, start, end), "time duration", durationStr, start, end);
+        }
+        return order;
+    }
+
+    /**
+     * Non-throwing form of {@link #compareNanoseconds(CharSequence, int, int, long)} for filters
+     * that test many values.
+     *
+     * @return -1, 0 or 1, or {@link UnitScanner#NOT_COMPARABLE} if the string cannot be parsed
+     */
+    public static int compareNanosecondsOrError(CharSequence durationStr, int start, int end, long nanos) {
+        int numberEnd = UnitScanner.scanNumber(durationStr, start, end);
+        if (numberEnd >= 0) {
+            int unitStart = UnitScanner.skipWhitespace(durationStr, numberEnd, end);
+            int unitEnd = UnitScanner.scanUnit(durationStr, unitStart, end);
+            // Compound durations are left to the full parser
+            if (UnitScanner.skipWhitespace(durationStr, unitEnd, end) == end) {
+                long multiplier = unitNanos(durationStr, unitStart, unitEnd);
+                int order = multiplier < 0
+                        ? 0 : UnitScanner.compareMagnitude(durationStr, start, numberEnd, multiplier, nanos);
+                if (order != 0) {
+                    return order;
+                }
+            }
+        }
+        long value = scanNanoseconds(durationStr, start, end);
+        return value < 0 ? UnitScanner.NOT_COMPARABLE : Long.compare(value, nanos);
+    }
+
+    /**
+     * Parses the time duration held in {@code durationStr} between {@code start} (inclusive)
+     * and {@code end} (exclusive) into nanoseconds, reading a bare number without a unit in
+     * {@code defaultUnit}. This matches log formats that write plain numbers, such as nginx
+     * {@code $request_time} (seconds) or Apache {@code %D} (microseconds).
+     *
+     * @see #parseNanoseconds(CharSequence)
+     */
+    public static long parseNanoseconds(CharSequence durationStr, int start, int end, TimeUnit defaultUnit) {
+        long nanos = scanNanoseconds(durationStr, start, end, defaultUnit);
+        if (nanos < 0) {
+            throw UnitScanner.error(nanos, "time duration", durationStr, start, end);
+        }
+        return nanos;
+    }
+
+    /**
+     * Non-throwing form of {@link #parseNanoseconds(CharSequence, int, int, TimeUnit)}.
+     *
+     * @return the duration in nanoseconds, or a negative {@link UnitScanner} error code
+     */
+    public static long scanNanoseconds(CharSequence durationStr, int start, int end, TimeUnit defaultUnit) {
+        if (UnitScanner.scanNumber(durationStr, start, end) == end) {
+            return UnitScanner.scaleOrError(durationStr, start, end, defaultUnit.toNanos(1));
+        }
+        return scanNanoseconds(durationStr, start, end);
+    }
+
+    /**
+     * Parses the time duration held in ASCII or UTF-8 {@code bytes} between {@code start}
+     * (inclusive) and {@code end} (exclusive) into nanoseconds without decoding a String. Callers
+     * parsing many fields from the same buffer can avoid even the view allocation by reusing an
+     * {@link AsciiCharSequence}.
+     *
+     * @see #parseNanoseconds(CharSequence)
+     */
+    public static long parseNanoseconds(byte[] bytes, int start, int end) {
+        return parseNanoseconds(new AsciiCharSequence().wrap(bytes), start, end);
+    }
+
+    /**
+     * Parses the time duration held in {@code buffer} between the absolute indexes {@code start}
+     * (inclusive) and {@code end} (exclusive) into nanoseconds. Works with heap, direct and
+     * memory-mapped buffers and does not change the buffer's position.
+     *
+     * @see #parseNanoseconds(byte[], int, int)
+     */
+    public static long parseNanoseconds(ByteBuffer buffer, int start, int end) {
+        return parseNanoseconds(new AsciiCharSequence().wrap(buffer), start, end);
+    }
+
+    /**
+     * Parses the time duration held in ASCII or UTF-8 {@code bytes} between {@code start}
+     * (inclusive) and {@code end} (exclusive) into milliseconds.
+     *
+     * @see #parseNanoseconds(byte[], int, int)
+     */
+    public static long parseMilliseconds(byte[] bytes, int start, int end) {
+        return parseNanoseconds(bytes, start, end) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Parses the time duration held in {@code buffer} between the absolute indexes {@code start}
+     * (inclusive) and {@code end} (exclusive) into milliseconds.
+     *
+     * @see #parseNanoseconds(ByteBuffer, int, int)
+     */
+    public static long parseMilliseconds(ByteBuffer buffer, int start, int end) {
+        return parseNanoseconds(buffer, start, end) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Parses an ISO-8601 duration of the form {@code PnDTnHnMn.nS}, as produced by
+     * {@code java.time.Duration#toString}, directly into nanoseconds. Components must appear in
+     * that order, at least one must be present, and only seconds may carry a fraction.
+     *
+     * @return the duration in nanoseconds, or a negative {@link UnitScanner} error code
+     */
+    private static long scanIso(CharSequence s, int start, int end) {
+        long total = 0;
+        boolean timePart = false;
+        int components = 0;
+        int lastOrder = 0;
+        int i = start + 1;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (c == 'T' || c == 't') {
+                if (timePart) {
+                    return UnitScanner.INVALID_FORMAT;
+                }
+                timePart = true;
+                components = 0;
+                i++;
+                continue;
+            }
+
+            int numberEnd = UnitScanner.scanNumber(s, i, end);
+            if (numberEnd < 0 || numberEnd == end) {
+                return UnitScanner.INVALID_FORMAT;
+            }
+            int order;
+            long multiplier;
+            switch (Character.toUpperCase(s.charAt(numberEnd))) {
+                case 'D':
+                    order = timePart ? -1 : 1;
+                    multiplier = NANOS_PER_DAY;
+                    break;
+                case 'H':
+                    order = timePart ? 2 : -1;
+                    multiplier = NANOS_PER_HOUR;
+                    break;
+                case 'M':
+                    order = timePart ? 3 : -1;
+                    multiplier = NANOS_PER_MINUTE;
+                    break;
+                case 'S':
+                    order = timePart ? 4 : -1;
+                    multiplier = NANOS_PER_SECOND;
+                    break;
+                default:
+                    order = -1;
+                    multiplier = 0;
+                    break;
+            }
+            if (order <= lastOrder || (order != 4 && hasFraction(s, i, numberEnd))) {
+                return UnitScanner.INVALID_FORMAT;
+            }
+            total = add(total, UnitScanner.scaleOrError(s, i, numberEnd, multiplier));
+            if (total < 0) {
+                return total;
+            }
+            lastOrder = order;
+            components++;
+            i = numberEnd + 1;
         }
+        if (components == 0) {
+            // Either "P" alone, or a 'T' designator with no time components after it.
+            return UnitScanner.INVALID_FORMAT;
+        }
+        return total;
+    }
+
+    private static boolean hasFraction(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == '.') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a component returned by {@link UnitScanner#scaleOrError} to a running total, passing
+     * error codes through.
+     */
+    private static long add(long total, long component) {
+        if (component < 0) {
+            return component;
+        }
+        if (Long.MAX_VALUE - total < component) {
+            return UnitScanner.OUT_OF_RANGE;
+        }
+        return total + component;
+    }
 
-        long amount = Long.parseLong(matcher.group(1));
-        String unit = matcher.group(2).toLowerCase();
-
-        switch (unit) {
-            case "s":
-                return TimeUnit.SECONDS.toMillis(amount);
-            case "m":
-                return TimeUnit.MINUTES.toMillis(amount);
-            case "h":
-                return TimeUnit.HOURS.toMillis(amount);
-            case "d":
-                return TimeUnit.DAYS.toMillis(amount);
-            case "w":
-                return TimeUnit.DAYS.toMillis(amount * 7);
-            case "mo":
+    /**
+     * Returns the nanoseconds in one unit, or a negative {@link UnitScanner} error code.
+     */
+    private static long unitNanos(CharSequence s, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            // A number without a unit
+            return UnitScanner.INVALID_FORMAT;
+        }
+        if (length == 1) {
+            switch (Character.toLowerCase(s.charAt(start))) {
+                case 's':
+                    return NANOS_PER_SECOND;
+                case 'm':
+                    return NANOS_PER_MINUTE;
+                case 'h':
+                    return NANOS_PER_HOUR;
+                case 'd':
+                    return NANOS_PER_DAY;
+                case 'w':
+                    return 7 * NANOS_PER_DAY;
+                case 'y':
+                    // Approximate a year as 365 days
+                    return 365 * NANOS_PER_DAY;
+                default:
+                    break;
+            }
+        } else if (length == 2) {
+            char first = Character.toLowerCase(s.charAt(start));
+            char second = Character.toLowerCase(s.charAt(start + 1));
+            if (first == 'm' && second == 'o') {
                 // Approximate a month as 30 days
-                return TimeUnit.DAYS.toMillis(amount * 30);
-            case "y":
-                // Approximate a year as 365 days
-                return TimeUnit.DAYS.toMillis(amount * 365);
-            default:
-                throw new IllegalArgumentException("Unsupported time unit: " + unit);
+                return 30 * NANOS_PER_DAY;
+            }
+            if (second == 's') {
+                switch (first) {
+                    case 'm':
+                        return NANOS_PER_MILLI;
+                    case 'u':
+                        return NANOS_PER_MICRO;
+                    case 'n':
+                        return 1L;
+                    default:
+                        break;
+                }
+            }
         }
+        return UnitScanner.UNSUPPORTED_UNIT;
     }
 
     /**
@@ -74,7 +391,25 @@ public class TimeDuration implements Token {
      * @return The duration in milliseconds
      */
     public long getMilliseconds() {
-        return milliseconds;
+        return nanoseconds / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the duration in microseconds.
+     *
+     * @return The duration in microseconds
+     */
+    public long getMicroseconds() {
+        return nanoseconds / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Returns the duration in nanoseconds.
+     *
+     * @return The duration in nanoseconds
+     */
+    public long getNanoseconds() {
+        return nanoseconds;
     }
 
     /**
@@ -83,7 +418,7 @@ public class TimeDuration implements Token {
      * @return The duration in seconds
      */
     public double getSeconds() {
-        return milliseconds / 1000.0;
+        return (double) nanoseconds / NANOS_PER_SECOND;
     }
 
     /**
@@ -92,7 +427,7 @@ public class TimeDuration implements Token {
      * @return The duration in minutes
      */
     public double getMinutes() {
-        return milliseconds / (1000.0 * 60);
+        return (double) nanoseconds / NANOS_PER_MINUTE;
     }
 
     /**
@@ -101,7 +436,7 @@ public class TimeDuration implements Token {
      * @return The duration in hours
      */
     public double getHours() {
-        return milliseconds / (1000.0 * 60 * 60);
+        return (double) nanoseconds / NANOS_PER_HOUR;
     }
 
     /**
@@ -110,7 +445,7 @@ public class TimeDuration implements Token {
      * @return The duration in days
      */
     public double getDays() {
-        return milliseconds / (1000.0 * 60 * 60 * 24);
+        return (double) nanoseconds / NANOS_PER_DAY;
     }
 
     @Override
@@ -123,7 +458,8 @@ public class TimeDuration implements Token {
         JsonObject object = new JsonObject();
         object.addProperty("type", TokenType.TIME_DURATION.name());
         object.addProperty("value", value);
-        object.addProperty("milliseconds", milliseconds);
+        object.addProperty("milliseconds", getMilliseconds());
+        object.addProperty("nanoseconds", nanoseconds);
         return object;
     }
 }
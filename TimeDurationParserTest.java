@@ -111,6 +111,13 @@ public class TimeDurationParserTest {
         verifyTimeDuration("set-timeout 1years;", "1years", 365 * 24 * 60 * 60 * 1000);
     }
 
+    @Test
+    public void testCompoundTimeDuration() throws Exception {
+        verifyTimeDuration("set-timeout 1h30m;", "1h30m", 90 * 60 * 1000);
+        verifyTimeDuration("set-timeout 2d4h;", "2d4h", 52 * 60 * 60 * 1000);
+        verifyTimeDuration("set-timeout 1m15s500ms;", "1m15s500ms", 75 * 1000 + 500);
+    }
+
     @Test
     public void testMixedCaseUnits() throws Exception {
         // Test mixed case units
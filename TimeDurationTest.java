@@ -5,6 +5,8 @@ import com.google.gson.JsonObject;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -84,15 +86,117 @@ public class TimeDurationTest {
 
     @Test
     public void testDecimalInput() {
-        // Not supported by the current implementation, but test to document behavior
-        try {
-            TimeDuration duration = new TimeDuration("1.5h");
-            Assert.fail("Expected IllegalArgumentException");
-        } catch (IllegalArgumentException e) {
-            // Expected exception
+        TimeDuration duration = new TimeDuration("1.5h");
+        Assert.assertEquals(90 * 60 * 1000L, duration.getMilliseconds());
+        Assert.assertEquals("1.5h", duration.value());
+
+        duration = new TimeDuration("1.5m");
+        Assert.assertEquals(90 * 1000L, duration.getMilliseconds());
+
+        duration = new TimeDuration("0.250s");
+        Assert.assertEquals(250L, duration.getMilliseconds());
+
+        // Fractions are computed exactly and truncated to whole milliseconds
+        Assert.assertEquals(1L, TimeDuration.parseMilliseconds("1.9ms"));
+    }
+
+    @Test
+    public void testMilliseconds() {
+        Assert.assertEquals(500L, new TimeDuration("500ms").getMilliseconds());
+        Assert.assertEquals(500L, new TimeDuration("500MS").getMilliseconds());
+        Assert.assertEquals(500L, TimeDuration.parseMilliseconds("t=500ms", 2, 7));
+    }
+
+    @Test
+    public void testSubMillisecondUnits() {
+        TimeDuration duration = new TimeDuration("250us");
+        Assert.assertEquals(250000L, duration.getNanoseconds());
+        Assert.assertEquals(250L, duration.getMicroseconds());
+        Assert.assertEquals(0L, duration.getMilliseconds());
+
+        duration = new TimeDuration("15ns");
+        Assert.assertEquals(15L, duration.getNanoseconds());
+
+        Assert.assertEquals(1500L, TimeDuration.parseNanoseconds("1.5us"));
+        Assert.assertEquals(1000001L, TimeDuration.parseNanoseconds("1ms1ns"));
+        Assert.assertEquals(123456789L, TimeDuration.parseNanoseconds("0.123456789s"));
+        Assert.assertEquals(250000000L, TimeDuration.parseNanoseconds("PT0.250S"));
+    }
+
+    @Test
+    public void testParseFromBytes() {
+        byte[] line = "200 512KB 35ms PT1H30M".getBytes(StandardCharsets.US_ASCII);
+        Assert.assertEquals(35L, TimeDuration.parseMilliseconds(line, 10, 14));
+        Assert.assertEquals(35000000L, TimeDuration.parseNanoseconds(line, 10, 14));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(line.length);
+        direct.put(line);
+        Assert.assertEquals(35L, TimeDuration.parseMilliseconds(direct, 10, 14));
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(90), TimeDuration.parseMilliseconds(direct, 15, 22));
+    }
+
+    @Test
+    public void testDefaultUnit() {
+        Assert.assertEquals(123000000L, TimeDuration.parseNanoseconds("0.123", 0, 5, TimeUnit.SECONDS));
+        Assert.assertEquals(4500L, TimeDuration.parseNanoseconds("4.5", 0, 3, TimeUnit.MICROSECONDS));
+        // An explicit unit always wins over the default
+        Assert.assertEquals(5000000L, TimeDuration.parseNanoseconds("5ms", 0, 3, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNanosecondOverflow() {
+        // Durations are held in nanoseconds, which cover roughly 292 years
+        new TimeDuration("300y");
+    }
+
+    @Test
+    public void testCompoundDuration() {
+        TimeDuration duration = new TimeDuration("1h30m");
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(90), duration.getMilliseconds());
+        Assert.assertEquals("1h30m", duration.value());
+
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(1) + TimeUnit.MINUTES.toMillis(30) + TimeUnit.SECONDS.toMillis(15),
+                            TimeDuration.parseMilliseconds("1h30m15s"));
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(52), TimeDuration.parseMilliseconds("2d4h"));
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(61) + 500, TimeDuration.parseMilliseconds("1m 1.5s"));
+        Assert.assertEquals(TimeUnit.SECONDS.toMillis(2) + 250, TimeDuration.parseMilliseconds("2s250ms"));
+    }
+
+    @Test
+    public void testIsoDuration() {
+        TimeDuration duration = new TimeDuration("PT1H30M");
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(90), duration.getMilliseconds());
+        Assert.assertEquals("PT1H30M", duration.value());
+
+        Assert.assertEquals(250L, TimeDuration.parseMilliseconds("PT0.250S"));
+        Assert.assertEquals(TimeUnit.MINUTES.toMillis(62), TimeDuration.parseMilliseconds("PT1H2M"));
+        Assert.assertEquals(TimeUnit.HOURS.toMillis(26), TimeDuration.parseMilliseconds("P1DT2H"));
+        Assert.assertEquals(TimeUnit.DAYS.toMillis(3), TimeDuration.parseMilliseconds("P3D"));
+        Assert.assertEquals(1500L, TimeDuration.parseMilliseconds("pt1.5s"));
+
+        // Must agree with java.time for the values it produces
+        for (String iso : new String[] { "PT0.001S", "PT59M59.999S", "PT48H", "PT1H0.5S" }) {
+            Assert.assertEquals(iso, java.time.Duration.parse(iso).toMillis(), TimeDuration.parseMilliseconds(iso));
+        }
+    }
+
+    @Test
+    public void testInvalidIsoDuration() {
+        for (String iso : new String[] { "P", "PT", "P1DT", "PT1M1H", "P1H", "PT1.5H", "PT1HT2M", "PT1", "P1W" }) {
+            try {
+                TimeDuration.parseMilliseconds(iso);
+                Assert.fail("Expected IllegalArgumentException for " + iso);
+            } catch (IllegalArgumentException e) {
+                // Expected exception
+            }
         }
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompleteCompoundDuration() {
+        new TimeDuration("1h30");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testInvalidInput() {
         new TimeDuration("invalid");
@@ -118,6 +222,7 @@ public class TimeDurationTest {
         Assert.assertEquals(TokenType.TIME_DURATION.name(), obj.get("type").getAsString());
         Assert.assertEquals("10s", obj.get("value").getAsString());
         Assert.assertEquals(10 * 1000, obj.get("milliseconds").getAsLong());
+        Assert.assertEquals(10 * 1000 * 1000 * 1000L, obj.get("nanoseconds").getAsLong());
     }
 
     @Test
@@ -180,4 +285,26 @@ public class TimeDurationTest {
         duration = new TimeDuration("0s");
         Assert.assertEquals(0L, duration.getMilliseconds());
     }
+
+    @Test
+    public void testCompareNanosecondsMatchesParse() {
+        String[] values = { "0s", "0.5s", "99ms", "999ms", "1000ms", "1s", "1.5s", "90s", "1m", "1h30m", "2 h",
+                "PT1M", "250us", "200y" };
+        long[] thresholds = { -1, 0, 100000000L, 999000000L, 1000000000L, 1500000000L, 60000000000L, Long.MAX_VALUE };
+        for (String value : values) {
+            long nanos = TimeDuration.parseNanoseconds(value);
+            for (long threshold : thresholds) {
+                Assert.assertEquals(value + " vs " + threshold, Long.signum(Long.compare(nanos, threshold)),
+                                    Long.signum(TimeDuration.compareNanoseconds(value, 0, value.length(), threshold)));
+            }
+        }
+        try {
+            TimeDuration.compareNanoseconds("5x", 0, 2, 0);
+            Assert.fail("Expected 5x to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Assert.assertEquals(UnitScanner.NOT_COMPARABLE, TimeDuration.compareNanosecondsOrError("5x", 0, 2, 0));
+        Assert.assertEquals(UnitScanner.NOT_COMPARABLE, TimeDuration.compareNanosecondsOrError("300y", 0, 4, 0));
+    }
 }
@@ -0,0 +1,98 @@
+package io.cdap.directives.transformation;
+
+import io.cdap.wrangler.api.DirectiveParseException;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+/**
+ * Labeled buckets over byte sizes or time durations, shared by {@link BucketBySize} and
+ * {@link BucketByDuration}.
+ *
+ * <p>Boundaries are written as a comma separated list of unit literals, e.g. {@code '1KB,1MB,1GB'},
+ * and compiled into a sorted {@code long[]}. A value belongs to the bucket of the first boundary it
+ * is below, or to the last bucket if it is at or above every boundary, so {@code n} boundaries make
+ * {@code n + 1} buckets. Labels default to ranges like {@code <1KB}, {@code 1KB-1MB} and
+ * {@code >=1GB}.</p>
+ */
+final class UnitBuckets {
+    private final long[] boundaries;
+    private final String[] labels;
+
+    private UnitBuckets(long[] boundaries, String[] labels) {
+        this.boundaries = boundaries;
+        this.labels = labels;
+    }
+
+    /**
+     * Parses boundaries and optional labels.
+     *
+     * @param directive name of the directive, for error messages
+     * @param boundaries comma separated unit literals in increasing order
+     * @param labels comma separated labels, one more than there are boundaries, or {@code null}
+     * @param parser resolves a unit literal, throwing {@link IllegalArgumentException} if invalid
+     */
+    static UnitBuckets parse(String directive, String boundaries, String labels,
+                             ToLongFunction<String> parser) throws DirectiveParseException {
+        String[] texts = split(directive, "boundary", boundaries);
+        long[] values = new long[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            try {
+                values[i] = parser.applyAsLong(texts[i]);
+            } catch (IllegalArgumentException e) {
+                throw new DirectiveParseException(
+                        directive, String.format("Invalid bucket boundary '%s'. %s", texts[i], e.getMessage()));
+            }
+            if (i > 0 && values[i] <= values[i - 1]) {
+                throw new DirectiveParseException(
+                        directive, String.format("Bucket boundary '%s' must be greater than '%s'",
+                                                 texts[i], texts[i - 1]));
+            }
+        }
+
+        String[] names;
+        if (labels == null) {
+            names = new String[texts.length + 1];
+            names[0] = "<" + texts[0];
+            for (int i = 1; i < texts.length; i++) {
+                names[i] = texts[i - 1] + "-" + texts[i];
+            }
+            names[texts.length] = ">=" + texts[texts.length - 1];
+        } else {
+            names = split(directive, "label", labels);
+            if (names.length != texts.length + 1) {
+                throw new DirectiveParseException(
+                        directive, String.format("Expected %d bucket labels for %d boundaries, but found %d",
+                                                 texts.length + 1, texts.length, names.length));
+            }
+        }
+        return new UnitBuckets(values, names);
+    }
+
+    /**
+     * Returns the label of the bucket that {@code value} falls into.
+     */
+    String label(long value) {
+        int index = Arrays.binarySearch(boundaries, value);
+        return labels[index >= 0 ? index + 1 : -index - 1];
+    }
+
+    int size() {
+        return labels.length;
+    }
+
+    /**
+     * Splits a comma separated list, rejecting empty items such as the one after a trailing comma.
+     */
+    private static String[] split(String directive, String item, String list) throws DirectiveParseException {
+        String[] parts = list.split(",", -1);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].trim();
+            if (parts[i].isEmpty()) {
+                throw new DirectiveParseException(
+                        directive, String.format("Empty bucket %s at position %d in '%s'", item, i + 1, list));
+            }
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,107 @@
+package io.cdap.wrangler.api.parser;
+
+import io.cdap.wrangler.api.annotations.PublicEvolving;
+
+/**
+ * Bulk parsing of byte size and time duration columns into primitive {@code long} vectors.
+ *
+ * <p>Each method takes a batch of column values and fills an output {@code long[]} together with
+ * a validity bitmap, where bit {@code i} (word {@code i >>> 6}) is set when value {@code i} was
+ * parsed. Values may be {@link ByteSize} or {@link TimeDuration} tokens, whose resolved value is
+ * copied, or any {@link CharSequence}, which is parsed by the allocation-free scalar parsers.
+ * {@code null} and values of any other type are left invalid. Text is scanned by the
+ * non-throwing forms of the parsers, so a column full of invalid values costs no more than a
+ * valid one.</p>
+ */
+@PublicEvolving
+public final class UnitColumns {
+    private UnitColumns() {
+    }
+
+    /**
+     * Allocates a validity bitmap large enough for {@code length} values.
+     */
+    public static long[] newValidity(int length) {
+        return new long[(length + 63) >>> 6];
+    }
+
+    /**
+     * Returns whether value {@code index} is marked valid in the bitmap.
+     */
+    public static boolean isValid(long[] validity, int index) {
+        return (validity[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Parses the first {@code length} values as byte sizes.
+     *
+     * @param values column values
+     * @param length number of values to parse
+     * @param bytes receives the size in bytes of each valid value
+     * @param validity bitmap receiving a set bit for each valid value; it is cleared first
+     * @param unitSystem interpretation of KB, MB, ... for values that are parsed from text
+     * @return number of valid values
+     */
+    public static int parseBytes(Object[] values, int length, long[] bytes, long[] validity,
+                                 ByteSize.UnitSystem unitSystem) {
+        clear(validity, length);
+        int valid = 0;
+        for (int i = 0; i < length; i++) {
+            Object value = values[i];
+            if (value instanceof CharSequence) {
+                CharSequence text = (CharSequence) value;
+                long parsed = ByteSize.scanBytes(text, 0, text.length(), unitSystem);
+                if (parsed < 0) {
+                    continue;
+                }
+                bytes[i] = parsed;
+            } else if (value instanceof ByteSize) {
+                bytes[i] = ((ByteSize) value).getBytes();
+            } else {
+                continue;
+            }
+            validity[i >>> 6] |= 1L << i;
+            valid++;
+        }
+        return valid;
+    }
+
+    /**
+     * Parses the first {@code length} values as time durations in nanoseconds.
+     *
+     * @param values column values
+     * @param length number of values to parse
+     * @param nanos receives the duration in nanoseconds of each valid value
+     * @param validity bitmap receiving a set bit for each valid value; it is cleared first
+     * @return number of valid values
+     */
+    public static int parseNanoseconds(Object[] values, int length, long[] nanos, long[] validity) {
+        clear(validity, length);
+        int valid = 0;
+        for (int i = 0; i < length; i++) {
+            Object value = values[i];
+            if (value instanceof CharSequence) {
+                CharSequence text = (CharSequence) value;
+                long parsed = TimeDuration.scanNanoseconds(text, 0, text.length());
+                if (parsed < 0) {
+                    continue;
+                }
+                nanos[i] = parsed;
+            } else if (value instanceof TimeDuration) {
+                nanos[i] = ((TimeDuration) value).getNanoseconds();
+            } else {
+                continue;
+            }
+            validity[i >>> 6] |= 1L << i;
+            valid++;
+        }
+        return valid;
+    }
+
+    private static void clear(long[] validity, int length) {
+        int words = (length + 63) >>> 6;
+        for (int i = 0; i < words; i++) {
+            validity[i] = 0L;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.cdap.wrangler.api.parser;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link UnitColumns} bulk parsing.
+ */
+public class UnitColumnsTest {
+
+    @Test
+    public void testParseBytes() {
+        Object[] values = { "512KB", new ByteSize("2MB"), null, "invalid", 42, "1.5KiB" };
+        long[] bytes = new long[values.length];
+        long[] validity = UnitColumns.newValidity(values.length);
+
+        int valid = UnitColumns.parseBytes(values, values.length, bytes, validity, ByteSize.UnitSystem.IEC);
+
+        Assert.assertEquals(3, valid);
+        Assert.assertTrue(UnitColumns.isValid(validity, 0));
+        Assert.assertEquals(512 * 1024L, bytes[0]);
+        Assert.assertTrue(UnitColumns.isValid(validity, 1));
+        Assert.assertEquals(2 * 1024 * 1024L, bytes[1]);
+        Assert.assertFalse(UnitColumns.isValid(validity, 2));
+        Assert.assertFalse(UnitColumns.isValid(validity, 3));
+        Assert.assertFalse(UnitColumns.isValid(validity, 4));
+        Assert.assertTrue(UnitColumns.isValid(validity, 5));
+        Assert.assertEquals(1536L, bytes[5]);
+    }
+
+    @Test
+    public void testParseNanoseconds() {
+        Object[] values = { "5s", new TimeDuration("250us"), "PT1M", "5x" };
+        long[] nanos = new long[values.length];
+        long[] validity = UnitColumns.newValidity(values.length);
+
+        int valid = UnitColumns.parseNanoseconds(values, values.length, nanos, validity);
+
+        Assert.assertEquals(3, valid);
+        Assert.assertEquals(5000000000L, nanos[0]);
+        Assert.assertEquals(250000L, nanos[1]);
+        Assert.assertEquals(60000000000L, nanos[2]);
+        Assert.assertFalse(UnitColumns.isValid(validity, 3));
+    }
+
+    @Test
+    public void testValidityAcrossWords() {
+        int length = 130;
+        Object[] values = new Object[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i % 2 == 0 ? i + "B" : "bad";
+        }
+        long[] bytes = new long[length];
+        long[] validity = UnitColumns.newValidity(length);
+        Assert.assertEquals(3, validity.length);
+
+        // Stale bits from a previous batch must be cleared
+        validity[2] = -1L;
+        Assert.assertEquals(65, UnitColumns.parseBytes(values, length, bytes, validity, ByteSize.UnitSystem.IEC));
+        for (int i = 0; i < length; i++) {
+            Assert.assertEquals(i % 2 == 0, UnitColumns.isValid(validity, i));
+        }
+        Assert.assertEquals(128L, bytes[128]);
+    }
+
+    @Test
+    public void testInvalidValuesReturnErrorCodes() {
+        Assert.assertEquals(UnitScanner.INVALID_FORMAT, ByteSize.scanBytes("bad", 0, 3, ByteSize.UnitSystem.IEC));
+        Assert.assertEquals(UnitScanner.UNSUPPORTED_UNIT, ByteSize.scanBytes("5XB", 0, 3, ByteSize.UnitSystem.IEC));
+        Assert.assertEquals(UnitScanner.OUT_OF_RANGE, ByteSize.scanBytes("9EB", 0, 3, ByteSize.UnitSystem.IEC));
+        Assert.assertEquals(UnitScanner.INVALID_FORMAT, TimeDuration.scanNanoseconds("5", 0, 1));
+        Assert.assertEquals(UnitScanner.UNSUPPORTED_UNIT, TimeDuration.scanNanoseconds("5x", 0, 2));
+        Assert.assertEquals(UnitScanner.OUT_OF_RANGE, TimeDuration.scanNanoseconds("300y", 0, 4));
+        Assert.assertEquals(UnitScanner.INVALID_FORMAT, TimeDuration.scanNanoseconds("PT", 0, 2));
+        Assert.assertEquals(90L * 60 * 1000000000L, TimeDuration.scanNanoseconds("1h30m", 0, 5));
+
+        Object[] values = { "9EB", "5XB", "", "1KB" };
+        long[] bytes = new long[values.length];
+        long[] validity = UnitColumns.newValidity(values.length);
+        Assert.assertEquals(1, UnitColumns.parseBytes(values, values.length, bytes, validity, ByteSize.UnitSystem.IEC));
+        Assert.assertTrue(UnitColumns.isValid(validity, 3));
+    }
+}
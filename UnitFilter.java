@@ -0,0 +1,86 @@
+package io.cdap.directives.row;
+
+import io.cdap.wrangler.api.DirectiveParseException;
+import io.cdap.wrangler.api.Row;
+import io.cdap.wrangler.api.parser.UnitScanner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row filter on a byte size or time duration column, shared by {@link FilterBySize} and
+ * {@link FilterByDuration}.
+ *
+ * <p>The threshold is resolved when the recipe is compiled, and each row costs one
+ * {@link ValueComparator} call. Rows without the column, or with a missing or invalid value, are
+ * dropped without throwing.</p>
+ */
+final class UnitFilter {
+    /**
+     * Compares a row value with the threshold.
+     */
+    interface ValueComparator {
+        /**
+         * @return -1, 0 or 1, or {@link UnitScanner#NOT_COMPARABLE} if {@code value} is not a valid
+         * size or duration
+         */
+        int compare(Object value, long threshold);
+    }
+
+    private final String column;
+    private final ComparisonOperator operator;
+    private final long threshold;
+    private final ValueComparator comparator;
+
+    private UnitFilter(String column, ComparisonOperator operator, long threshold, ValueComparator comparator) {
+        this.column = column;
+        this.operator = operator;
+        this.threshold = threshold;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Creates a filter keeping the rows whose value in {@code column} compares true against
+     * {@code threshold}.
+     *
+     * @param directive name of the directive, for error messages
+     * @param symbol one of {@code <, <=, >, >=, ==, !=}
+     */
+    static UnitFilter create(String directive, String column, String symbol, long threshold,
+                             ValueComparator comparator) throws DirectiveParseException {
+        ComparisonOperator operator = ComparisonOperator.fromSymbol(symbol.trim());
+        if (operator == null) {
+            throw new DirectiveParseException(
+                    directive, String.format("Invalid operator '%s'. Supported operators are <, <=, >, >=, ==, !=",
+                                             symbol.trim()));
+        }
+        return new UnitFilter(column, operator, threshold, comparator);
+    }
+
+    List<Row> filter(List<Row> rows) {
+        List<Row> results = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            int idx = row.find(column);
+            if (idx == -1) {
+                continue;
+            }
+            int order = comparator.compare(row.getValue(idx), threshold);
+            if (order != UnitScanner.NOT_COMPARABLE && operator.test(order)) {
+                results.add(row);
+            }
+        }
+        return results;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    String getOperatorSymbol() {
+        return operator.getSymbol();
+    }
+
+    long getThreshold() {
+        return threshold;
+    }
+}
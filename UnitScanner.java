@@ -0,0 +1,223 @@
+package io.cdap.wrangler.api.parser;
+
+/**
+ * Allocation-free scanning helpers shared by the {@link ByteSize} and {@link TimeDuration} parsers,
+ * and the error codes returned by their non-throwing {@code scan} methods.
+ *
+ * <p>Numbers are read as fixed-point decimals: the integer part and up to nine fractional digits
+ * are accumulated as longs and scaled by the unit multiplier with integer arithmetic only, so no
+ * {@code double} or {@code BigDecimal} is involved. Fractional results are truncated towards zero.</p>
+ */
+public final class UnitScanner {
+    /**
+     * Maximum number of fractional digits that contribute to the result; further digits are ignored.
+     */
+    private static final int MAX_FRACTION_DIGITS = 9;
+
+    /*
+     * Error codes returned by the non-throwing scanners in place of a value. Valid sizes and
+     * durations are never negative, so any negative result is one of these codes.
+     */
+    public static final long INVALID_FORMAT = -1L;
+    public static final long OUT_OF_RANGE = -2L;
+    public static final long UNSUPPORTED_UNIT = -3L;
+
+    /**
+     * Returned by the non-throwing {@code compare} methods in place of -1, 0 or 1 when the value
+     * cannot be parsed.
+     */
+    public static final int NOT_COMPARABLE = Integer.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private UnitScanner() {
+    }
+
+    /**
+     * Scans a decimal number of the form {@code digits['.'digits]} starting at {@code start}.
+     *
+     * @return index just past the number, or -1 if no well-formed number starts at {@code start}
+     */
+    static int scanNumber(CharSequence s, int start, int end) {
+        int i = start;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+        }
+        if (i == start) {
+            return -1;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            int fractionStart = ++i;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+            }
+            if (i == fractionStart) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the first non-whitespace character at or after {@code start}.
+     */
+    static int skipWhitespace(CharSequence s, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(s.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index just past the unit suffix starting at {@code start}, i.e. the first digit,
+     * whitespace or the end of the range.
+     */
+    static int scanUnit(CharSequence s, int start, int end) {
+        int i = start;
+        while (i < end) {
+            char c = s.charAt(i);
+            if (isDigit(c) || isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Multiplies the number previously validated by {@link #scanNumber} with the unit multiplier.
+     *
+     * @param s text holding the number
+     * @param start index of the first digit
+     * @param end index just past the last digit
+     * @param multiplier value of one unit
+     * @return the exact scaled value, truncated towards zero
+     * @throws IllegalArgumentException if the result does not fit in a long
+     */
+    static long scale(CharSequence s, int start, int end, long multiplier) {
+        long result = scaleOrError(s, start, end, multiplier);
+        if (result < 0) {
+            throw error(result, "number", s, start, end);
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #scale}, but returns {@link #OUT_OF_RANGE} instead of throwing, so that bulk
+     * parsers do not pay for an exception per invalid value.
+     */
+    static long scaleOrError(CharSequence s, int start, int end, long multiplier) {
+        long whole = 0;
+        long fraction = 0;
+        long fractionScale = 1;
+        int fractionDigits = 0;
+        int i = start;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                break;
+            }
+            int digit = c - '0';
+            if (whole > (Long.MAX_VALUE - digit) / 10) {
+                return OUT_OF_RANGE;
+            }
+            whole = whole * 10 + digit;
+        }
+        for (i++; i < end && fractionDigits < MAX_FRACTION_DIGITS; i++, fractionDigits++) {
+            fraction = fraction * 10 + (s.charAt(i) - '0');
+            fractionScale *= 10;
+        }
+
+        long result;
+        if ((multiplier & (multiplier - 1)) == 0) {
+            // Binary units are scaled with a shift rather than a multiplication.
+            int shift = Long.numberOfTrailingZeros(multiplier);
+            if (whole > (Long.MAX_VALUE >>> shift)) {
+                return OUT_OF_RANGE;
+            }
+            result = whole << shift;
+        } else {
+            if (whole > Long.MAX_VALUE / multiplier) {
+                return OUT_OF_RANGE;
+            }
+            result = whole * multiplier;
+        }
+        if (fraction != 0) {
+            // fraction < fractionScale <= 10^9, so neither product below can overflow.
+            long q = multiplier / fractionScale;
+            long r = multiplier % fractionScale;
+            long part = fraction * q + fraction * r / fractionScale;
+            if (result > Long.MAX_VALUE - part) {
+                return OUT_OF_RANGE;
+            }
+            result += part;
+        }
+        return result;
+    }
+
+    /**
+     * Builds the exception reported for an error code returned by a non-throwing scanner.
+     *
+     * @param kind what was being parsed, e.g. "byte size"
+     */
+    static IllegalArgumentException error(long code, String kind, CharSequence s, int start, int end) {
+        CharSequence text = s.subSequence(start, end);
+        if (code == OUT_OF_RANGE) {
+            return new IllegalArgumentException("Value out of range: " + text);
+        }
+        if (code == UNSUPPORTED_UNIT) {
+            return new IllegalArgumentException("Unsupported " + kind + " unit: " + text);
+        }
+        return new IllegalArgumentException("Invalid " + kind + " format: " + text);
+    }
+
+    /**
+     * Compares the number previously validated by {@link #scanNumber}, scaled by the unit
+     * multiplier, with {@code threshold} using only its count of significant integer digits: a
+     * number with {@code d} such digits lies in {@code [10^(d-1), 10^d)} units.
+     *
+     * @return a negative or positive number if the scaled value is certainly below or above
+     * {@code threshold}, or 0 if that takes {@link #scale}; never decides for values that
+     * {@link #scale} would reject as out of range
+     */
+    static int compareMagnitude(CharSequence s, int start, int end, long multiplier, long threshold) {
+        int i = start;
+        while (i < end && s.charAt(i) == '0') {
+            i++;
+        }
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (digits >= POWERS_OF_TEN.length) {
+            return 0;
+        }
+        try {
+            long upper = Math.multiplyExact(POWERS_OF_TEN[digits], multiplier);
+            if (upper <= threshold) {
+                return -1;
+            }
+            long lower = digits == 0 ? 0 : upper / 10;
+            return lower > threshold ? 1 : 0;
+        } catch (ArithmeticException e) {
+            return 0;
+        }
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+}